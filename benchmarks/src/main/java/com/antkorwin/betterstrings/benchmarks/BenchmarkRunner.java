@@ -0,0 +1,46 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Runs benchmarks with usual JMH command line options and the GC profiler,
+ * so the report has `ops/s` and `gc.alloc.rate.norm` of each benchmark.
+ * <p>
+ * The processor works in forked JVMs, for JDK 9+ they get
+ * exports of javac packages which are used by the processor.
+ */
+public final class BenchmarkRunner {
+
+	private static final String[] JAVAC_PACKAGES = {"api", "code", "comp", "file", "jvm", "main",
+	                                                "model", "parser", "processing", "tree", "util"};
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+		                                                    .addProfiler(GCProfiler.class);
+		if (!System.getProperty("java.specification.version").startsWith("1.")) {
+			List<String> jvmArgs = new ArrayList<>(commandLine.getJvmArgsAppend().orElse(Collections.emptyList()));
+			for (String javacPackage : JAVAC_PACKAGES) {
+				jvmArgs.add("--add-exports=jdk.compiler/com.sun.tools.javac." + javacPackage + "=ALL-UNNAMED");
+			}
+			options.jvmArgsAppend(jvmArgs.toArray(new String[0]));
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,58 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The shape of a synthetic source tree: the number of files, string literals
+ * in each method and placeholders in each literal. It's written
+ * as `files x literals x placeholders`, e.g. `1000x10x3`.
+ */
+public final class CompileCase {
+
+	private final int files;
+	private final int literals;
+	private final int placeholders;
+
+	public CompileCase(int files, int literals, int placeholders) {
+		if (files <= 0 || literals < 0 || placeholders < 0) {
+			throw new IllegalArgumentException("Wrong shape of the source tree: " + files + "x" + literals + "x" + placeholders);
+		}
+		this.files = files;
+		this.literals = literals;
+		this.placeholders = placeholders;
+	}
+
+	/**
+	 * @param value the shape in the form of `files x literals x placeholders`
+	 * @return parsed case
+	 */
+	public static CompileCase parse(String value) {
+		String[] parts = value.trim().split("x");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Wrong shape of the source tree: " + value +
+			                                   ", expected files x literals x placeholders, e.g. 1000x10x3");
+		}
+		try {
+			return new CompileCase(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Wrong shape of the source tree: " + value, e);
+		}
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public int getLiterals() {
+		return literals;
+	}
+
+	public int getPlaceholders() {
+		return placeholders;
+	}
+
+	@Override
+	public String toString() {
+		return files + "x" + literals + "x" + placeholders;
+	}
+}
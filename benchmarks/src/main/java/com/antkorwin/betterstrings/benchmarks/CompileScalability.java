@@ -0,0 +1,321 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.antkorwin.betterstrings.BetterStringsProcessor;
+import com.antkorwin.betterstrings.ProcessingMetrics;
+import com.antkorwin.betterstrings.ast.ExpressionParser;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Measures the compile-time overhead of the processor on synthetic source trees:
+ * each tree is compiled by javac in this JVM without annotation processing
+ * and with the {@link BetterStringsProcessor}, the report has the wall time,
+ * the CPU time of the process and the peak heap of both compilations,
+ * and the time which the processor spends in its phases.
+ * <p>
+ * The overhead of each tree (the extra wall time relative to the compilation
+ * without the processor) is saved as a baseline by `--save-baseline`
+ * or when the baseline doesn't exist yet, the next runs with the same
+ * baseline exit with the status 1 when the overhead grows by more than the tolerance.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>`--cases=100x10x3,...` shapes of trees, see {@link CompileCase};</li>
+ * <li>`--repeat=3` compilations of each tree, the median one is reported;</li>
+ * <li>`--warmup=2` compilations of a small tree before measurements;</li>
+ * <li>`--baseline=path` properties with the overhead of each tree;</li>
+ * <li>`--save-baseline` writes the baseline instead of the check;</li>
+ * <li>`--tolerance=0.25` allowed growth of the overhead, in parts of the overhead in the baseline;</li>
+ * <li>`--work-dir=path` directory of generated sources and classes;</li>
+ * <li>`-Aoption=value` options of the processor.</li>
+ * </ul>
+ */
+public final class CompileScalability {
+
+	static final String DEFAULT_CASES = "100x10x3,1000x10x3,5000x10x3,20000x10x3," +
+	                                    "1000x0x0,1000x50x3," +
+	                                    "1000x10x0,1000x10x10";
+
+	private static final CompileCase WARMUP_CASE = new CompileCase(100, 10, 3);
+	private static final double NANOS_IN_MILLI = 1_000_000.0;
+	private static final double BYTES_IN_MEGABYTE = 1024.0 * 1024.0;
+
+	private final JavaCompiler compiler;
+	private final List<String> processorOptions;
+
+	private CompileScalability(List<String> processorOptions) {
+		this.compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("Sources are compiled by javac, run the harness by JDK instead of JRE");
+		}
+		this.processorOptions = processorOptions;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		List<CompileCase> cases = new ArrayList<>();
+		List<String> processorOptions = new ArrayList<>();
+		int repeat = 3;
+		int warmup = 2;
+		Path baseline = null;
+		boolean saveBaseline = false;
+		double tolerance = 0.25;
+		Path workDirectory = null;
+
+		for (String arg : args) {
+			if (arg.startsWith("--cases=")) {
+				for (String value : value(arg).split(",")) {
+					cases.add(CompileCase.parse(value));
+				}
+			} else if (arg.startsWith("--repeat=")) {
+				repeat = Integer.parseInt(value(arg));
+			} else if (arg.startsWith("--warmup=")) {
+				warmup = Integer.parseInt(value(arg));
+			} else if (arg.startsWith("--baseline=")) {
+				baseline = Paths.get(value(arg));
+			} else if (arg.equals("--save-baseline")) {
+				saveBaseline = true;
+			} else if (arg.startsWith("--tolerance=")) {
+				tolerance = Double.parseDouble(value(arg));
+			} else if (arg.startsWith("--work-dir=")) {
+				workDirectory = Paths.get(value(arg));
+			} else if (arg.startsWith("-A")) {
+				processorOptions.add(arg);
+			} else {
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+		if (cases.isEmpty()) {
+			for (String value : DEFAULT_CASES.split(",")) {
+				cases.add(CompileCase.parse(value));
+			}
+		}
+		if (repeat <= 0) {
+			throw new IllegalArgumentException("Wrong number of repeats: " + repeat);
+		}
+		if (saveBaseline && baseline == null) {
+			throw new IllegalArgumentException("The --save-baseline option requires --baseline=path");
+		}
+		if (baseline != null && baseline.getParent() != null) {
+			Files.createDirectories(baseline.getParent());
+		}
+		if (workDirectory == null) {
+			workDirectory = Files.createTempDirectory("better-strings-scalability");
+		}
+
+		CompileScalability harness = new CompileScalability(processorOptions);
+		List<CaseResult> results = harness.run(cases, repeat, warmup, workDirectory);
+
+		if (baseline == null) {
+			return;
+		}
+		if (saveBaseline || !Files.exists(baseline)) {
+			ScalabilityBaseline.save(baseline, results);
+			System.out.println("The baseline is saved to " + baseline);
+			return;
+		}
+		List<String> regressions = ScalabilityBaseline.load(baseline).check(results, tolerance);
+		if (!regressions.isEmpty()) {
+			System.out.println("The overhead of the processor is above the baseline " + baseline + ":");
+			regressions.forEach(regression -> System.out.println("  " + regression));
+			System.exit(1);
+		}
+		System.out.println("The overhead of the processor is within the baseline " + baseline);
+	}
+
+	private List<CaseResult> run(List<CompileCase> cases, int repeat, int warmup, Path workDirectory) {
+
+		if (warmup > 0) {
+			List<Path> sources = SyntheticSources.generate(WARMUP_CASE, workDirectory.resolve("warmup/src"));
+			for (int i = 0; i < warmup; i++) {
+				compile(sources, workDirectory.resolve("warmup/classes"), false);
+				compile(sources, workDirectory.resolve("warmup/classes"), true);
+			}
+		}
+
+		System.out.println(String.format("%-12s %10s %10s %9s %10s %10s %9s %9s %10s %10s %10s %10s",
+		                                 "case", "javac ms", "+proc ms", "overhead",
+		                                 "cpu ms", "+cpu ms", "heap MB", "+heap MB",
+		                                 "tokens ms", "parser ms", "trans ms", "lower ms"));
+		List<CaseResult> results = new ArrayList<>();
+		for (CompileCase compileCase : cases) {
+			Path caseDirectory = workDirectory.resolve(compileCase.toString());
+			List<Path> sources = SyntheticSources.generate(compileCase, caseDirectory.resolve("src"));
+			List<Measurement> plain = new ArrayList<>();
+			List<Measurement> processed = new ArrayList<>();
+			for (int i = 0; i < repeat; i++) {
+				plain.add(compile(sources, caseDirectory.resolve("classes"), false));
+				processed.add(compile(sources, caseDirectory.resolve("classes"), true));
+			}
+			CaseResult result = new CaseResult(compileCase, median(plain), median(processed));
+			System.out.println(result);
+			results.add(result);
+		}
+		return results;
+	}
+
+	private Measurement compile(List<Path> sources, Path classes, boolean withProcessor) {
+
+		try {
+			Files.createDirectories(classes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		List<File> files = new ArrayList<>(sources.size());
+		sources.forEach(source -> files.add(source.toFile()));
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+		List<String> options = new ArrayList<>(Arrays.asList("-d", classes.toString(),
+		                                                     "-classpath", System.getProperty("java.class.path"),
+		                                                     "-implicit:none",
+		                                                     "-Xlint:none"));
+		BetterStringsProcessor processor = new BetterStringsProcessor();
+		if (withProcessor) {
+			options.addAll(processorOptions);
+			ExpressionParser.getCache().clear();
+		} else {
+			options.add("-proc:none");
+		}
+		JavaCompiler.CompilationTask task = compiler.getTask(null,
+		                                                     fileManager,
+		                                                     diagnostics,
+		                                                     options,
+		                                                     null,
+		                                                     fileManager.getJavaFileObjectsFromFiles(files));
+		if (withProcessor) {
+			task.setProcessors(Arrays.asList(processor));
+		}
+
+		System.gc();
+		List<MemoryPoolMXBean> heapPools = heapPools();
+		heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+		long cpuStart = processCpuTime();
+		long wallStart = System.nanoTime();
+
+		boolean success = task.call();
+
+		long wallNanos = System.nanoTime() - wallStart;
+		long cpuNanos = processCpuTime() - cpuStart;
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+		try {
+			fileManager.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (!success) {
+			throw new IllegalStateException("Compilation of synthetic sources failed: " + diagnostics.getDiagnostics());
+		}
+		return new Measurement(wallNanos, cpuNanos, peakHeap, withProcessor ? processor.getMetrics() : null);
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	private static long processCpuTime() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+	}
+
+	private static Measurement median(List<Measurement> measurements) {
+		List<Measurement> sorted = new ArrayList<>(measurements);
+		sorted.sort(Comparator.comparingLong(measurement -> measurement.wallNanos));
+		return sorted.get(sorted.size() / 2);
+	}
+
+	private static String value(String arg) {
+		return arg.substring(arg.indexOf('=') + 1);
+	}
+
+
+	private static final class Measurement {
+
+		private final long wallNanos;
+		private final long cpuNanos;
+		private final long peakHeap;
+		private final ProcessingMetrics metrics;
+
+		Measurement(long wallNanos, long cpuNanos, long peakHeap, ProcessingMetrics metrics) {
+			this.wallNanos = wallNanos;
+			this.cpuNanos = cpuNanos;
+			this.peakHeap = peakHeap;
+			this.metrics = metrics;
+		}
+	}
+
+
+	/**
+	 * Median compilations of a tree without and with the processor.
+	 */
+	static final class CaseResult {
+
+		private final CompileCase compileCase;
+		private final Measurement plain;
+		private final Measurement processed;
+
+		private CaseResult(CompileCase compileCase, Measurement plain, Measurement processed) {
+			this.compileCase = compileCase;
+			this.plain = plain;
+			this.processed = processed;
+		}
+
+		CompileCase getCompileCase() {
+			return compileCase;
+		}
+
+		/**
+		 * @return the extra wall time of the compilation with the processor,
+		 * in parts of the time of the compilation without it
+		 */
+		double getOverhead() {
+			return (double) (processed.wallNanos - plain.wallNanos) / plain.wallNanos;
+		}
+
+		@Override
+		public String toString() {
+			ProcessingMetrics metrics = processed.metrics;
+			return String.format("%-12s %10.1f %10.1f %8.1f%% %10.1f %10.1f %9.1f %9.1f %10.1f %10.1f %10.1f %10.1f",
+			                     compileCase,
+			                     plain.wallNanos / NANOS_IN_MILLI,
+			                     processed.wallNanos / NANOS_IN_MILLI,
+			                     getOverhead() * 100,
+			                     plain.cpuNanos / NANOS_IN_MILLI,
+			                     processed.cpuNanos / NANOS_IN_MILLI,
+			                     plain.peakHeap / BYTES_IN_MEGABYTE,
+			                     processed.peakHeap / BYTES_IN_MEGABYTE,
+			                     metrics.getTokenizerNanos() / NANOS_IN_MILLI,
+			                     metrics.getParserNanos() / NANOS_IN_MILLI,
+			                     metrics.getTranslatorNanos() / NANOS_IN_MILLI,
+			                     metrics.getLoweringNanos() / NANOS_IN_MILLI);
+		}
+	}
+}
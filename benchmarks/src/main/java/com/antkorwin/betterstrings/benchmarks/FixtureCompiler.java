@@ -0,0 +1,167 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.antkorwin.betterstrings.BetterStringsProcessor;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Compiles a fixture from resources through the {@link BetterStringsProcessor}
+ * in memory, so one benchmark jar measures the code generated with any options.
+ */
+public final class FixtureCompiler {
+
+	private static final String FIXTURES = "fixtures/";
+
+	private FixtureCompiler() {
+	}
+
+	/**
+	 * @param className full name of the class, its source is `fixtures/SimpleName.java` in resources
+	 * @param options   options of the processor, e.g. `-AconcatStrategy=indy`
+	 * @return the compiled class
+	 */
+	public static Class<?> compile(String className, String... options) {
+
+		String simpleName = className.substring(className.lastIndexOf('.') + 1);
+		String source = readResource(FIXTURES + simpleName + ".java");
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("Fixtures are compiled by javac, run benchmarks by JDK instead of JRE");
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+		MemoryFileManager fileManager = new MemoryFileManager(standardFileManager);
+
+		List<String> arguments = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+		arguments.addAll(Arrays.asList(options));
+		JavaCompiler.CompilationTask task = compiler.getTask(null,
+		                                                     fileManager,
+		                                                     diagnostics,
+		                                                     arguments,
+		                                                     null,
+		                                                     Collections.singletonList(new SourceFile(className, source)));
+		task.setProcessors(Collections.singletonList(new BetterStringsProcessor()));
+		if (!task.call()) {
+			throw new IllegalStateException("Compilation of " + className + " failed: " + diagnostics.getDiagnostics());
+		}
+
+		ClassLoader classLoader = new MemoryClassLoader(fileManager.classes, FixtureCompiler.class.getClassLoader());
+		try {
+			return classLoader.loadClass(className);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String readResource(String name) {
+		try (InputStream input = FixtureCompiler.class.getClassLoader().getResourceAsStream(name)) {
+			if (input == null) {
+				throw new IllegalArgumentException("Fixture not found: " + name);
+			}
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+				output.write(buffer, 0, read);
+			}
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private final String source;
+
+		SourceFile(String className, String source) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassFile(String className) {
+			super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+	}
+
+
+	private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+		private final Map<String, ClassFile> classes = new HashMap<>();
+
+		MemoryFileManager(JavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location,
+		                                           String className,
+		                                           JavaFileObject.Kind kind,
+		                                           FileObject sibling) {
+			ClassFile classFile = new ClassFile(className);
+			classes.put(className, classFile);
+			return classFile;
+		}
+	}
+
+
+	private static class MemoryClassLoader extends ClassLoader {
+
+		private final Map<String, ClassFile> classes;
+
+		MemoryClassLoader(Map<String, ClassFile> classes, ClassLoader parent) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			ClassFile classFile = classes.get(name);
+			if (classFile == null) {
+				return super.findClass(name);
+			}
+			byte[] bytes = classFile.bytes.toByteArray();
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The same messages written by hand, see {@link HandWrittenMessages}.
+ */
+@State(Scope.Benchmark)
+public class HandWrittenBenchmark extends MessagesBenchmark {
+
+	@Param({"PLUS", "STRING_BUILDER", "STRING_FORMAT", "MESSAGE_FORMAT"})
+	public HandWrittenMessages implementation;
+
+	@Setup
+	public void chooseImplementation() {
+		messages = implementation;
+	}
+}
@@ -0,0 +1,125 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.text.MessageFormat;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Hand-written alternatives of the interpolation.
+ */
+public enum HandWrittenMessages implements Messages {
+
+	PLUS {
+		@Override
+		public String oneObject(Object value) {
+			return "value: " + value;
+		}
+
+		@Override
+		public String fourObjects(String user, Object order, String status, Object total) {
+			return "user " + user + " order " + order + " status " + status + " total " + total;
+		}
+
+		@Override
+		public String fourPrimitives(int count, long id, double amount, boolean active) {
+			return "count " + count + " id " + id + " amount " + amount + " active " + active;
+		}
+
+		@Override
+		public String eightMixed(String user, int count, Object order, long id,
+		                         String status, double amount, Object total, boolean active) {
+			return "user " + user + " count " + count + " order " + order + " id " + id +
+			       " status " + status + " amount " + amount + " total " + total + " active " + active;
+		}
+	},
+
+	STRING_BUILDER {
+		@Override
+		public String oneObject(Object value) {
+			return new StringBuilder().append("value: ").append(value).toString();
+		}
+
+		@Override
+		public String fourObjects(String user, Object order, String status, Object total) {
+			return new StringBuilder().append("user ").append(user)
+			                          .append(" order ").append(order)
+			                          .append(" status ").append(status)
+			                          .append(" total ").append(total)
+			                          .toString();
+		}
+
+		@Override
+		public String fourPrimitives(int count, long id, double amount, boolean active) {
+			return new StringBuilder().append("count ").append(count)
+			                          .append(" id ").append(id)
+			                          .append(" amount ").append(amount)
+			                          .append(" active ").append(active)
+			                          .toString();
+		}
+
+		@Override
+		public String eightMixed(String user, int count, Object order, long id,
+		                         String status, double amount, Object total, boolean active) {
+			return new StringBuilder().append("user ").append(user)
+			                          .append(" count ").append(count)
+			                          .append(" order ").append(order)
+			                          .append(" id ").append(id)
+			                          .append(" status ").append(status)
+			                          .append(" amount ").append(amount)
+			                          .append(" total ").append(total)
+			                          .append(" active ").append(active)
+			                          .toString();
+		}
+	},
+
+	STRING_FORMAT {
+		@Override
+		public String oneObject(Object value) {
+			return String.format("value: %s", value);
+		}
+
+		@Override
+		public String fourObjects(String user, Object order, String status, Object total) {
+			return String.format("user %s order %s status %s total %s", user, order, status, total);
+		}
+
+		@Override
+		public String fourPrimitives(int count, long id, double amount, boolean active) {
+			return String.format("count %d id %d amount %s active %b", count, id, amount, active);
+		}
+
+		@Override
+		public String eightMixed(String user, int count, Object order, long id,
+		                         String status, double amount, Object total, boolean active) {
+			return String.format("user %s count %d order %s id %d status %s amount %s total %s active %b",
+			                     user, count, order, id, status, amount, total, active);
+		}
+	},
+
+	/**
+	 * Numbers are formatted by the locale (e.g. `1,234`), so the text may differ from others.
+	 */
+	MESSAGE_FORMAT {
+		@Override
+		public String oneObject(Object value) {
+			return MessageFormat.format("value: {0}", value);
+		}
+
+		@Override
+		public String fourObjects(String user, Object order, String status, Object total) {
+			return MessageFormat.format("user {0} order {1} status {2} total {3}", user, order, status, total);
+		}
+
+		@Override
+		public String fourPrimitives(int count, long id, double amount, boolean active) {
+			return MessageFormat.format("count {0} id {1} amount {2} active {3}", count, id, amount, active);
+		}
+
+		@Override
+		public String eightMixed(String user, int count, Object order, long id,
+		                         String status, double amount, Object total, boolean active) {
+			return MessageFormat.format("user {0} count {1} order {2} id {3} status {4} amount {5} total {6} active {7}",
+			                            user, count, order, id, status, amount, total, active);
+		}
+	}
+}
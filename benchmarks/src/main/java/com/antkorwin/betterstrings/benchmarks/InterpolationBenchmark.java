@@ -0,0 +1,40 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.antkorwin.betterstrings.Options;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Messages with the string interpolation, the fixture is compiled
+ * with each combination of options of the processor.
+ */
+@State(Scope.Benchmark)
+public class InterpolationBenchmark extends MessagesBenchmark {
+
+	private static final String FIXTURE = "com.antkorwin.betterstrings.benchmarks.fixtures.InterpolatedMessages";
+
+	@Param({"valueOf", "indy", "builder"})
+	public String concatStrategy;
+
+	@Param({"false", "true"})
+	public boolean callToStringExplicitly;
+
+	@Setup
+	public void compileFixture() throws ReflectiveOperationException {
+		List<String> options = new ArrayList<>();
+		options.add("-A" + Options.CONCAT_STRATEGY + "=" + concatStrategy);
+		if (callToStringExplicitly) {
+			options.add("-A" + Options.CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS);
+		}
+		messages = (Messages) FixtureCompiler.compile(FIXTURE, options.toArray(new String[0]))
+		                                     .getDeclaredConstructor()
+		                                     .newInstance();
+	}
+}
@@ -0,0 +1,19 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Messages with a different number and types of values,
+ * each implementation builds the same text in its own way.
+ */
+public interface Messages {
+
+	String oneObject(Object value);
+
+	String fourObjects(String user, Object order, String status, Object total);
+
+	String fourPrimitives(int count, long id, double amount, boolean active);
+
+	String eightMixed(String user, int count, Object order, long id,
+	                  String status, double amount, Object total, boolean active);
+}
@@ -0,0 +1,61 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Benchmarks of all kinds of messages, subclasses choose the implementation.
+ * Values are fields, so the compiler can't fold messages into constants.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public abstract class MessagesBenchmark {
+
+	protected Messages messages;
+
+	String user = "antkorwin";
+	int count = 42;
+	Object order = LocalDate.of(2026, 10, 18);
+	long id = 1234567890123L;
+	String status = "PAID";
+	double amount = 99.95;
+	Object total = new BigDecimal("1234.50");
+	boolean active = true;
+
+	@Benchmark
+	public String oneObject() {
+		return messages.oneObject(order);
+	}
+
+	@Benchmark
+	public String fourObjects() {
+		return messages.fourObjects(user, order, status, total);
+	}
+
+	@Benchmark
+	public String fourPrimitives() {
+		return messages.fourPrimitives(count, id, amount, active);
+	}
+
+	@Benchmark
+	public String eightMixed() {
+		return messages.eightMixed(user, count, order, id, status, amount, total, active);
+	}
+}
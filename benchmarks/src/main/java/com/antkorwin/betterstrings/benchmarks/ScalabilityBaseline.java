@@ -0,0 +1,92 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Overheads of the processor saved by {@link CompileScalability},
+ * the key of a property is the shape of a tree (e.g. `1000x10x3`),
+ * the value is the extra wall time of the compilation with the processor
+ * in parts of the time without it.
+ */
+final class ScalabilityBaseline {
+
+	/**
+	 * Allowed growth of small overheads, it covers the noise
+	 * of trees which are compiled with almost no overhead.
+	 */
+	private static final double MIN_SLACK = 0.05;
+
+	private final Properties overheads;
+
+	private ScalabilityBaseline(Properties overheads) {
+		this.overheads = overheads;
+	}
+
+	static ScalabilityBaseline load(Path path) {
+		Properties overheads = new Properties();
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			overheads.load(reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can't read the baseline " + path, e);
+		}
+		return new ScalabilityBaseline(overheads);
+	}
+
+	/**
+	 * Writes trees in the order of their shapes without the date
+	 * of {@link Properties#store}, so baselines in the repository have readable diffs.
+	 */
+	static void save(Path path, List<CompileScalability.CaseResult> results) {
+		Map<String, String> overheads = new TreeMap<>();
+		for (CompileScalability.CaseResult result : results) {
+			overheads.put(result.getCompileCase().toString(), format(result.getOverhead()));
+		}
+		List<String> lines = new ArrayList<>();
+		lines.add("# Overhead of BetterStringsProcessor, in parts of the compilation time without it");
+		overheads.forEach((compileCase, overhead) -> lines.add(compileCase + "=" + overhead));
+		try {
+			Files.write(path, lines, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can't write the baseline " + path, e);
+		}
+	}
+
+	/**
+	 * @param results   measured overheads, trees which aren't in the baseline are ignored
+	 * @param tolerance allowed growth of the overhead, in parts of the overhead in the baseline
+	 * @return descriptions of trees whose overhead exceeds the baseline
+	 */
+	List<String> check(List<CompileScalability.CaseResult> results, double tolerance) {
+		List<String> regressions = new ArrayList<>();
+		for (CompileScalability.CaseResult result : results) {
+			String expected = overheads.getProperty(result.getCompileCase().toString());
+			if (expected == null) {
+				continue;
+			}
+			double overhead = Double.parseDouble(expected);
+			double limit = overhead + Math.max(overhead * tolerance, MIN_SLACK);
+			if (result.getOverhead() > limit) {
+				regressions.add(result.getCompileCase() + ": " + format(result.getOverhead()) +
+				                " > " + format(limit) + " (" + expected + " in the baseline)");
+			}
+		}
+		return regressions;
+	}
+
+	private static String format(double overhead) {
+		return String.format(Locale.ROOT, "%.3f", overhead);
+	}
+}
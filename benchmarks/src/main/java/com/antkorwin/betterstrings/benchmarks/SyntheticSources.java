@@ -0,0 +1,110 @@
+package com.antkorwin.betterstrings.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Generates a tree of sources in the shape of a {@link CompileCase},
+ * the same sources are compiled with and without the processor.
+ * <p>
+ * Each class has {@link #METHODS_PER_CLASS} methods, each method appends
+ * string literals with placeholders to a builder, expressions in placeholders
+ * are variables, arithmetic and method calls in a repeating order.
+ */
+public final class SyntheticSources {
+
+	static final int METHODS_PER_CLASS = 4;
+
+	private static final int CLASSES_PER_PACKAGE = 100;
+	private static final String PACKAGE_PREFIX = "synthetic.p";
+
+	private SyntheticSources() {
+	}
+
+	/**
+	 * @param compileCase the shape of the tree
+	 * @param directory   root of the tree, it's created when it doesn't exist
+	 * @return generated source files
+	 */
+	public static List<Path> generate(CompileCase compileCase, Path directory) {
+		List<Path> files = new ArrayList<>(compileCase.getFiles());
+		try {
+			for (int index = 0; index < compileCase.getFiles(); index++) {
+				String packageName = PACKAGE_PREFIX + index / CLASSES_PER_PACKAGE;
+				Path packageDirectory = directory.resolve(packageName.replace('.', '/'));
+				Files.createDirectories(packageDirectory);
+				Path file = packageDirectory.resolve(className(index) + ".java");
+				Files.write(file, source(compileCase, packageName, index).getBytes(StandardCharsets.UTF_8));
+				files.add(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return files;
+	}
+
+	static String source(CompileCase compileCase, String packageName, int index) {
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(packageName).append(";\n\n")
+		      .append("public class ").append(className(index)).append(" {\n\n")
+		      .append("\tprivate final String name = \"source ").append(index).append("\";\n")
+		      .append("\tprivate int counter;\n");
+
+		for (int method = 0; method < METHODS_PER_CLASS; method++) {
+			source.append("\n\tpublic String method").append(method)
+			      .append("(int number, long id, String text, Object value) {\n")
+			      .append("\t\tStringBuilder out = new StringBuilder();\n");
+			for (int literal = 0; literal < compileCase.getLiterals(); literal++) {
+				source.append("\t\tout.append(\"").append(literal(compileCase, method, literal)).append("\");\n");
+			}
+			source.append("\t\tcounter++;\n")
+			      .append("\t\treturn out.toString();\n")
+			      .append("\t}\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	private static String literal(CompileCase compileCase, int method, int literal) {
+		StringBuilder text = new StringBuilder("line ").append(literal).append(" of method ").append(method);
+		for (int placeholder = 0; placeholder < compileCase.getPlaceholders(); placeholder++) {
+			text.append(placeholder == 0 ? ": " : ", ").append("${").append(expression(placeholder, literal)).append("}");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Some expressions depend on the number of the literal, so the tree has
+	 * repeated and unique codes as usual sources have.
+	 */
+	private static String expression(int placeholder, int literal) {
+		switch (placeholder % 8) {
+			case 0:
+				return "number";
+			case 1:
+				return "id + " + literal;
+			case 2:
+				return "text.length()";
+			case 3:
+				return "value";
+			case 4:
+				return "name";
+			case 5:
+				return "Math.max(number, " + literal + ")";
+			case 6:
+				return "counter * " + placeholder;
+			default:
+				return "text.substring(" + literal % 2 + ").toUpperCase()";
+		}
+	}
+
+	private static String className(int index) {
+		return "Source" + index;
+	}
+}
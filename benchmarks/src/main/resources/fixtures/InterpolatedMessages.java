@@ -0,0 +1,32 @@
+package com.antkorwin.betterstrings.benchmarks.fixtures;
+
+import com.antkorwin.betterstrings.benchmarks.Messages;
+
+/**
+ * Messages with the string interpolation, this class is compiled
+ * through the BetterStringsProcessor when a benchmark starts.
+ */
+public class InterpolatedMessages implements Messages {
+
+	@Override
+	public String oneObject(Object value) {
+		return "value: ${value}";
+	}
+
+	@Override
+	public String fourObjects(String user, Object order, String status, Object total) {
+		return "user ${user} order ${order} status ${status} total ${total}";
+	}
+
+	@Override
+	public String fourPrimitives(int count, long id, double amount, boolean active) {
+		return "count ${count} id ${id} amount ${amount} active ${active}";
+	}
+
+	@Override
+	public String eightMixed(String user, int count, Object order, long id,
+	                         String status, double amount, Object total, boolean active) {
+		return "user ${user} count ${count} order ${order} id ${id} " +
+		       "status ${status} amount ${amount} total ${total} active ${active}";
+	}
+}
@@ -0,0 +1,168 @@
+package com.antkorwin.betterstrings;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Appending of parts of a string literal to the target of
+ * {@link BetterStrings#appendTo(Appendable, String)}, used by the generated code:
+ * <pre>
+ * Appenders.to(out).append("id=").append(id).append(";").target()
+ * </pre>
+ * The overload of `append` is chosen by the compiler, so values of primitive types go to
+ * typed methods of {@link StringBuilder} without boxing, and the appender of a
+ * {@link StringBuilder} doesn't throw {@link IOException}. Calls are chained on the
+ * appender, not nested in arguments, so the compiler resolves each of them once.
+ */
+public final class Appenders {
+
+	private Appenders() {
+	}
+
+	public static ToStringBuilder to(StringBuilder out) {
+		return new ToStringBuilder(out);
+	}
+
+	public static <A extends Appendable> ToAppendable<A> to(A out) {
+		return new ToAppendable<>(out);
+	}
+
+	public static final class ToStringBuilder {
+
+		private final StringBuilder out;
+
+		private ToStringBuilder(StringBuilder out) {
+			this.out = out;
+		}
+
+		public ToStringBuilder append(String value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(CharSequence value) {
+			out.append(value);
+			return this;
+		}
+
+		/**
+		 * As {@code String.valueOf(char[])} in other interpolations, an array of chars is appended as a text.
+		 */
+		public ToStringBuilder append(Object value) {
+			if (value instanceof char[]) {
+				out.append((char[]) value);
+			} else {
+				out.append(value);
+			}
+			return this;
+		}
+
+		public ToStringBuilder append(char value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(int value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(long value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(float value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(double value) {
+			out.append(value);
+			return this;
+		}
+
+		public ToStringBuilder append(boolean value) {
+			out.append(value);
+			return this;
+		}
+
+		public StringBuilder target() {
+			return out;
+		}
+	}
+
+	public static final class ToAppendable<A extends Appendable> {
+
+		private final A out;
+
+		private ToAppendable(A out) {
+			this.out = out;
+		}
+
+		public ToAppendable<A> append(CharSequence value) throws IOException {
+			out.append(value);
+			return this;
+		}
+
+		/**
+		 * As {@code String.valueOf(char[])} in other interpolations, an array of chars
+		 * is appended as a text without a copy.
+		 */
+		public ToAppendable<A> append(Object value) throws IOException {
+			if (!(value instanceof char[])) {
+				out.append(String.valueOf(value));
+			} else if (out instanceof Writer) {
+				((Writer) out).write((char[]) value);
+			} else {
+				out.append(CharBuffer.wrap((char[]) value));
+			}
+			return this;
+		}
+
+		public ToAppendable<A> append(char value) throws IOException {
+			out.append(value);
+			return this;
+		}
+
+		public ToAppendable<A> append(int value) throws IOException {
+			if (out instanceof StringBuilder) {
+				((StringBuilder) out).append(value);
+			} else {
+				out.append(Integer.toString(value));
+			}
+			return this;
+		}
+
+		public ToAppendable<A> append(long value) throws IOException {
+			if (out instanceof StringBuilder) {
+				((StringBuilder) out).append(value);
+			} else {
+				out.append(Long.toString(value));
+			}
+			return this;
+		}
+
+		public ToAppendable<A> append(float value) throws IOException {
+			out.append(Float.toString(value));
+			return this;
+		}
+
+		public ToAppendable<A> append(double value) throws IOException {
+			out.append(Double.toString(value));
+			return this;
+		}
+
+		public ToAppendable<A> append(boolean value) throws IOException {
+			out.append(value ? "true" : "false");
+			return this;
+		}
+
+		public A target() {
+			return out;
+		}
+	}
+}
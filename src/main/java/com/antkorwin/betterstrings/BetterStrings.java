@@ -0,0 +1,96 @@
+package com.antkorwin.betterstrings;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Markers of string literals which are interpolated in a special way.
+ */
+public final class BetterStrings {
+
+	private BetterStrings() {
+	}
+
+	/**
+	 * The string literal with expressions in the argument of this method
+	 * is compiled into the {@link LazyString}, values of expressions are evaluated
+	 * in place, but the string is concatenated only when it's read:
+	 * <pre>
+	 * check(user != null, BetterStrings.lazy("user ${id} not found in ${repository}"));
+	 * </pre>
+	 * The argument has to be a string literal, any other argument
+	 * is just wrapped into the lazy string.
+	 *
+	 * @param message the string literal with interpolations
+	 * @return the lazy string
+	 */
+	public static LazyString lazy(String message) {
+		return new LazyString(new Object[]{message});
+	}
+
+	/**
+	 * The string literal with expressions in the argument of this method is compiled
+	 * into appending of its texts and values of expressions to the target, one by one,
+	 * without the concatenated string:
+	 * <pre>
+	 * BetterStrings.appendTo(writer, "${id};${name};${amount}\n");
+	 * </pre>
+	 * Values are appended by typed overloads of {@link Appenders}, e.g. an `int`
+	 * goes to {@link StringBuilder#append(int)}. The argument has to be a string literal,
+	 * any other argument is appended as is.
+	 *
+	 * @param out     the target
+	 * @param message the string literal with interpolations
+	 * @param <A>     the type of the target
+	 * @return the target
+	 * @throws IOException if the target fails
+	 */
+	public static <A extends Appendable> A appendTo(A out, String message) throws IOException {
+		out.append(message);
+		return out;
+	}
+
+	/**
+	 * {@link #appendTo(Appendable, String)} which doesn't throw {@link IOException}.
+	 */
+	public static StringBuilder appendTo(StringBuilder out, String message) {
+		return out.append(message);
+	}
+
+	/**
+	 * The string literal with expressions in the argument of this method is compiled
+	 * into UTF-8 bytes without the concatenated string:
+	 * <pre>
+	 * channel.write(ByteBuffer.wrap(BetterStrings.utf8("${metric}:${value}|c\n")));
+	 * </pre>
+	 * Texts of the literal are encoded by the processor, values are written by typed
+	 * overloads of {@link Utf8Builder} into the array which is presized by the texts.
+	 * The argument has to be a string literal, any other argument is just encoded.
+	 *
+	 * @param message the string literal with interpolations
+	 * @return bytes of the message in UTF-8
+	 */
+	public static byte[] utf8(String message) {
+		return message.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * {@link #utf8(String)} which writes bytes into the buffer from its position:
+	 * <pre>
+	 * BetterStrings.writeUtf8(frame, "SET ${key} ${value}\r\n");
+	 * </pre>
+	 *
+	 * @param buffer  the target
+	 * @param message the string literal with interpolations
+	 * @return the buffer, its position is after the written bytes
+	 * @throws java.nio.BufferOverflowException if there isn't enough space in the buffer,
+	 *                                          its position isn't changed then, but a heap
+	 *                                          buffer may keep a part of the message after it
+	 */
+	public static ByteBuffer writeUtf8(ByteBuffer buffer, String message) {
+		return buffer.put(message.getBytes(StandardCharsets.UTF_8));
+	}
+}
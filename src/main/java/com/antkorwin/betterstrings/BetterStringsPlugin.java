@@ -0,0 +1,162 @@
+package com.antkorwin.betterstrings;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.tools.Diagnostic;
+
+import com.antkorwin.betterstrings.ast.InnerStringVarsAstTranslator;
+import com.antkorwin.betterstrings.ast.ToStringDeclaration;
+import com.antkorwin.betterstrings.ast.TypeAwareLowering;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Options;
+import com.sun.tools.javac.util.Position;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The string interpolation as a javac plugin, without annotation processing:
+ * <pre>
+ * javac -proc:none -Xplugin:BetterStrings -processorpath better-strings.jar ...
+ * </pre>
+ * Each compilation unit is translated once when it's entered, names and annotations
+ * of the code are resolved then as in {@link BetterStringsProcessor}, and the type-aware
+ * lowering runs when classes are analyzed. Options are `-A` options of the processor,
+ * or arguments of the plugin: `-Xplugin:"BetterStrings concatStrategy=indy guardLoggerCalls"`.
+ * <p>
+ * Templates of {@link InterpolatedTemplate} require the processor, when both are enabled
+ * the processor only generates templates and the plugin translates the code.
+ */
+public class BetterStringsPlugin implements Plugin, TaskListener {
+
+	public static final String NAME = "BetterStrings";
+
+	private final ProcessingMetrics metrics = new ProcessingMetrics();
+	private final Set<JCTree.JCCompilationUnit> translatedUnits = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private JavacTask task;
+	private Configuration configuration;
+	private TypeAwareLowering lowering;
+	private boolean analyzeStarted;
+	private Predicate<String> generated = typeName -> false;
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void init(JavacTask task, String... args) {
+		this.task = task;
+		Context context = ((BasicJavacTask) task).getContext();
+		context.put(BetterStringsPlugin.class, this);
+		configuration = BetterStringsProcessor.configure(options(context, args), context, this::printMessage);
+		lowering = new TypeAwareLowering(task, metrics);
+		task.addTaskListener(lowering);
+		task.addTaskListener(this);
+	}
+
+	/**
+	 * `-Akey=value` options of the compiler, overridden by `key=value` arguments of the plugin.
+	 */
+	private static Map<String, String> options(Context context, String... args) {
+		Map<String, String> options = new HashMap<>();
+		for (String key : Options.instance(context).keySet()) {
+			if (key.startsWith("-A") && key.length() > 2) {
+				putOption(options, key.substring(2));
+			}
+		}
+		for (String arg : args) {
+			putOption(options, arg);
+		}
+		return options;
+	}
+
+	private static void putOption(Map<String, String> options, String option) {
+		int separator = option.indexOf('=');
+		if (separator < 0) {
+			options.put(option, null);
+		} else {
+			options.put(option.substring(0, separator), option.substring(separator + 1));
+		}
+	}
+
+	/**
+	 * The processor passes its generated types when both are enabled,
+	 * they're translated by the plugin regardless of the scope.
+	 *
+	 * @param generated qualified names of generated types which are always translated
+	 */
+	void translateGenerated(Predicate<String> generated) {
+		this.generated = generated;
+	}
+
+	/**
+	 * @return time which the plugin spends in phases of the compilation
+	 */
+	public ProcessingMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void started(TaskEvent event) {
+		// all units are entered and translated before the first class is analyzed
+		if (event.getKind() == TaskEvent.Kind.ANALYZE && !analyzeStarted) {
+			analyzeStarted = true;
+			if (configuration.getMetricsReport() != null) {
+				BetterStringsProcessor.reportMetrics(metrics, configuration.getMetricsReport(), lowering, this::printMessage);
+			}
+		}
+	}
+
+	@Override
+	public void finished(TaskEvent event) {
+		if (event.getKind() == TaskEvent.Kind.PARSE && event.getCompilationUnit() != null) {
+			// nothing is entered again after the plugin, so methods are declared before classes are entered
+			Context context = ((BasicJavacTask) task).getContext();
+			new ToStringDeclaration(context).declareAll((JCTree.JCCompilationUnit) event.getCompilationUnit());
+			return;
+		}
+		if (event.getKind() != TaskEvent.Kind.ENTER || event.getCompilationUnit() == null) {
+			return;
+		}
+		JCTree.JCCompilationUnit unit = (JCTree.JCCompilationUnit) event.getCompilationUnit();
+		if (!translatedUnits.add(unit)) {
+			return;
+		}
+		if (!BetterStringsProcessor.inScope(configuration.getScope(), unit, generated) ||
+		    !BetterStringsProcessor.mayContainInterpolations(unit)) {
+			metrics.unitSkipped();
+			return;
+		}
+		metrics.unitScanned();
+		// the context of the compilation is changed between rounds of processing in JDK 8
+		Context context = ((BasicJavacTask) task).getContext();
+		new InnerStringVarsAstTranslator(context, configuration, lowering, metrics).translate(unit);
+	}
+
+	/**
+	 * Messages of the plugin aren't related to the code, they're printed as raw messages of the compiler,
+	 * warnings are printed as lines because the raw warning of JDK 8 is prefixed as an error.
+	 */
+	private void printMessage(Diagnostic.Kind kind, String message) {
+		Log log = Log.instance(((BasicJavacTask) task).getContext());
+		if (kind == Diagnostic.Kind.ERROR) {
+			log.rawError(Position.NOPOS, message);
+		} else if (kind == Diagnostic.Kind.WARNING || kind == Diagnostic.Kind.MANDATORY_WARNING) {
+			log.printRawLines(Log.WriterKind.WARNING, "warning: " + message);
+		} else {
+			log.printRawLines(Log.WriterKind.NOTICE, "Note: " + message);
+		}
+	}
+}
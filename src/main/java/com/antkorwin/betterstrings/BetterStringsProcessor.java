@@ -1,6 +1,17 @@
 package com.antkorwin.betterstrings;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -12,9 +23,17 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
 
 import com.antkorwin.betterstrings.ast.InnerStringVarsAstTranslator;
+import com.antkorwin.betterstrings.ast.ToStringDeclaration;
+import com.antkorwin.betterstrings.ast.TypeAwareLowering;
+import com.antkorwin.betterstrings.template.TemplateGenerator;
+import com.antkorwin.betterstrings.tokenizer.Tokenizer;
+import com.sun.source.util.JavacTask;
 import com.sun.source.util.Trees;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.jvm.Target;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.Context;
@@ -27,19 +46,54 @@ import com.sun.tools.javac.util.Context;
  * @author Korovin Anatoliy
  */
 @SupportedAnnotationTypes("*")
-@SupportedOptions(Options.CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS)
+@SupportedOptions({Options.CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS,
+                   Options.CONCAT_STRATEGY,
+                   Options.GUARD_LOGGER_CALLS,
+                   Options.PARSER_THREADS,
+                   Options.METRICS,
+                   Options.PROFILE_INTERPOLATIONS,
+                   Options.TEMPLATES_PATH,
+                   Options.INCLUDE,
+                   Options.EXCLUDE,
+                   Options.ENABLED_ONLY})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class BetterStringsProcessor extends AbstractProcessor {
 
+	private static final int JAVA_9_MAJOR_VERSION = 53;
+	static final int SLOWEST_FILES_IN_REPORT = 10;
+	private static final long NANOS_IN_MILLI = 1_000_000;
+
 	private JavacProcessingEnvironment env;
 	private Messager messager;
-	private boolean callToStringExplicitlyInInterpolations;
+	private Configuration configuration;
+	private TypeAwareLowering lowering;
+	private TemplateGenerator templates;
+	private boolean pluginMode;
+	private final ProcessingMetrics metrics = new ProcessingMetrics();
+
+	/**
+	 * Compilation units which are already translated, a unit is translated
+	 * once even if it declares several root elements, and next rounds
+	 * only translate units of newly generated sources.
+	 */
+	private final Set<JCTree.JCCompilationUnit> translatedUnits = Collections.newSetFromMap(new IdentityHashMap<>());
 
 	@Override
 	public synchronized void init(ProcessingEnvironment processingEnv) {
 		messager = processingEnv.getMessager();
 		env = (JavacProcessingEnvironment) processingEnv;
-		callToStringExplicitlyInInterpolations = env.getOptions().containsKey(Options.CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS);
+		configuration = configure(env.getOptions(), env.getContext(), messager::printMessage);
+		// the plugin translates units itself, the processor only generates templates then,
+		// it's checked in the first context, the context is changed between rounds in JDK 8
+		BetterStringsPlugin plugin = env.getContext().get(BetterStringsPlugin.class);
+		pluginMode = plugin != null;
+		JavacTask task = JavacTask.instance(env);
+		lowering = new TypeAwareLowering(task, metrics);
+		task.addTaskListener(lowering);
+		templates = new TemplateGenerator(processingEnv, configuration);
+		if (pluginMode) {
+			plugin.translateGenerated(templates::isImplementation);
+		}
 		super.init(processingEnv);
 	}
 
@@ -47,6 +101,15 @@ public class BetterStringsProcessor extends AbstractProcessor {
 	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
 
 		if (roundEnv.processingOver()) {
+			if (configuration.getMetricsReport() != null && !pluginMode) {
+				reportMetrics(metrics, configuration.getMetricsReport(), lowering, messager::printMessage);
+			}
+			return false;
+		}
+
+		// implementations of templates are translated in the next round
+		templates.generate(roundEnv.getElementsAnnotatedWith(InterpolatedTemplate.class));
+		if (pluginMode) {
 			return false;
 		}
 
@@ -57,13 +120,126 @@ public class BetterStringsProcessor extends AbstractProcessor {
 			if (!isClassOrEnum(codeElement)) {
 				continue;
 			}
-			JCTree tree = (JCTree) trees.getPath(codeElement).getCompilationUnit();
-			new InnerStringVarsAstTranslator(context, callToStringExplicitlyInInterpolations).translate(tree);
+			JCTree.JCCompilationUnit unit = (JCTree.JCCompilationUnit) trees.getPath(codeElement).getCompilationUnit();
+			if (!translatedUnits.add(unit)) {
+				continue;
+			}
+			if (!inScope(configuration.getScope(), unit, templates::isImplementation) ||
+			    !mayContainInterpolations(unit)) {
+				metrics.unitSkipped();
+				continue;
+			}
+			metrics.unitScanned();
+			new InnerStringVarsAstTranslator(context, configuration, lowering, metrics).translate(unit);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return time which this processor spends in phases of the compilation
+	 */
+	public ProcessingMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @param options  options of the compiler
+	 * @param context  the context of the compilation
+	 * @param messages errors and warnings of options
+	 * @return the configuration of the translation, the default one if options are wrong
+	 */
+	static Configuration configure(Map<String, String> options,
+	                               Context context,
+	                               BiConsumer<Diagnostic.Kind, String> messages) {
+		Configuration configuration;
+		try {
+			configuration = Configuration.from(options);
+		} catch (IllegalArgumentException e) {
+			messages.accept(Diagnostic.Kind.ERROR, e.getMessage());
+			configuration = Configuration.from(Collections.emptyMap());
+		}
+		if (configuration.getConcatStrategy() == ConcatStrategy.INDY &&
+		    Target.instance(context).majorVersion < JAVA_9_MAJOR_VERSION) {
+			messages.accept(Diagnostic.Kind.WARNING,
+			                "The `" + ConcatStrategy.INDY.getOptionValue() + "` concat strategy requires the target 9 " +
+			                "or above, `" + ConcatStrategy.VALUE_OF.getOptionValue() + "` is used instead");
+			configuration = configuration.withConcatStrategy(ConcatStrategy.VALUE_OF);
+		}
+		return configuration;
+	}
+
+	/**
+	 * Writes the report of the translation and prints its summary, the report
+	 * is written again with the time of the lowering when classes are lowered.
+	 */
+	static void reportMetrics(ProcessingMetrics metrics,
+	                          String report,
+	                          TypeAwareLowering lowering,
+	                          BiConsumer<Diagnostic.Kind, String> messages) {
+		writeMetricsReport(metrics, report, messages);
+		messages.accept(Diagnostic.Kind.NOTE,
+		                "BetterStrings: " + metrics.getUnitsScanned() + " of " +
+		                (metrics.getUnitsScanned() + metrics.getUnitsSkipped()) + " compilation units scanned, " +
+		                metrics.getLiteralsRewritten() + " of " + metrics.getLiteralsVisited() + " literals rewritten, " +
+		                metrics.getExpressionsParsed() + " expressions parsed (" +
+		                metrics.getParseCacheHits() + " from the cache), the translation took " +
+		                metrics.getTotalNanos() / NANOS_IN_MILLI + " ms, the report is in " + report);
+		lowering.afterLowering(() -> writeMetricsReport(metrics, report, messages));
+	}
+
+	private static void writeMetricsReport(ProcessingMetrics metrics,
+	                                       String report,
+	                                       BiConsumer<Diagnostic.Kind, String> messages) {
+		try {
+			Path path = Paths.get(report);
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			Files.write(path, metrics.toJson(SLOWEST_FILES_IN_REPORT).getBytes(StandardCharsets.UTF_8));
+		} catch (IOException | InvalidPathException e) {
+			messages.accept(Diagnostic.Kind.WARNING, "Can't write the metrics report " + report + ": " + e);
 		}
+	}
 
+	/**
+	 * The unit is in the scope if one of its top-level types is, it's checked
+	 * by names and annotations of symbols without reading the code.
+	 *
+	 * @param generated qualified names of generated types which are always translated
+	 */
+	static boolean inScope(InterpolationScope scope, JCTree.JCCompilationUnit unit, Predicate<String> generated) {
+		if (scope.isEverything()) {
+			return true;
+		}
+		for (JCTree typeDecl : unit.getTypeDecls()) {
+			if (!(typeDecl instanceof JCTree.JCClassDecl) || ((JCTree.JCClassDecl) typeDecl).sym == null) {
+				continue;
+			}
+			Symbol.ClassSymbol type = ((JCTree.JCClassDecl) typeDecl).sym;
+			String typeName = type.getQualifiedName().toString();
+			if (generated.test(typeName) ||
+			    scope.includes(typeName) && (!scope.isEnabledOnly() || isEnabled(type))) {
+				return true;
+			}
+		}
 		return false;
 	}
 
+	private static boolean isEnabled(Symbol.ClassSymbol type) {
+		return type.getAnnotation(EnabledStringInterpolation.class) != null ||
+		       type.packge().getAnnotation(EnabledStringInterpolation.class) != null;
+	}
+
+	static boolean mayContainInterpolations(JCTree.JCCompilationUnit unit) {
+		try {
+			CharSequence source = unit.getSourceFile().getCharContent(true);
+			return Tokenizer.mayContainExpressions(source) || ToStringDeclaration.mayContainAnnotation(source);
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
 	private boolean isClassOrEnum(Element codeElement) {
 		return codeElement.getKind() == ElementKind.CLASS ||
 		       codeElement.getKind() == ElementKind.INTERFACE ||
@@ -0,0 +1,49 @@
+package com.antkorwin.betterstrings;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The shape of the code which is generated
+ * for a string literal with expressions.
+ */
+public enum ConcatStrategy {
+
+	/**
+	 * Concatenation of `String.valueOf(...)` invocations,
+	 * it works for any target version.
+	 */
+	VALUE_OF("valueOf"),
+
+	/**
+	 * Concatenation of raw values of expressions, for the target 9 and above
+	 * javac turns it into one `invokedynamic` of the `StringConcatFactory`
+	 * where text parts of the literal are constants of the recipe.
+	 */
+	INDY("indy"),
+
+	/**
+	 * One `StringBuilder` with the capacity which is computed at compile time
+	 * from the length of text parts and an estimate for each expression,
+	 * it avoids resizes of the default builder of javac for the target 8.
+	 */
+	STRING_BUILDER("builder");
+
+	private final String optionValue;
+
+	ConcatStrategy(String optionValue) {
+		this.optionValue = optionValue;
+	}
+
+	public String getOptionValue() {
+		return optionValue;
+	}
+
+	public static ConcatStrategy fromOptionValue(String value) {
+		for (ConcatStrategy strategy : values()) {
+			if (strategy.optionValue.equals(value)) {
+				return strategy;
+			}
+		}
+		throw new IllegalArgumentException("Unknown value of the " + Options.CONCAT_STRATEGY + " option: " + value);
+	}
+}
@@ -0,0 +1,147 @@
+package com.antkorwin.betterstrings;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Settings of the string interpolation,
+ * made from compiler options (see {@link Options}).
+ */
+public final class Configuration {
+
+	private final boolean callToStringExplicitlyInInterpolations;
+	private final ConcatStrategy concatStrategy;
+	private final boolean guardLoggerCalls;
+	private final int parserThreads;
+	private final String metricsReport;
+	private final boolean profileInterpolations;
+	private final List<String> templatesPath;
+	private final InterpolationScope scope;
+
+	private Configuration(boolean callToStringExplicitlyInInterpolations,
+	                      ConcatStrategy concatStrategy,
+	                      boolean guardLoggerCalls,
+	                      int parserThreads,
+	                      String metricsReport,
+	                      boolean profileInterpolations,
+	                      List<String> templatesPath,
+	                      InterpolationScope scope) {
+		this.callToStringExplicitlyInInterpolations = callToStringExplicitlyInInterpolations;
+		this.concatStrategy = concatStrategy;
+		this.guardLoggerCalls = guardLoggerCalls;
+		this.parserThreads = parserThreads;
+		this.metricsReport = metricsReport;
+		this.profileInterpolations = profileInterpolations;
+		this.templatesPath = templatesPath;
+		this.scope = scope;
+	}
+
+	public static Configuration from(Map<String, String> options) {
+		String concatStrategy = options.get(Options.CONCAT_STRATEGY);
+		return new Configuration(options.containsKey(Options.CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS),
+		                         concatStrategy == null
+		                         ? ConcatStrategy.VALUE_OF
+		                         : ConcatStrategy.fromOptionValue(concatStrategy),
+		                         options.containsKey(Options.GUARD_LOGGER_CALLS),
+		                         parserThreads(options.get(Options.PARSER_THREADS)),
+		                         metricsReport(options),
+		                         options.containsKey(Options.PROFILE_INTERPOLATIONS),
+		                         templatesPath(options.get(Options.TEMPLATES_PATH)),
+		                         InterpolationScope.from(options.get(Options.INCLUDE),
+		                                                 options.get(Options.EXCLUDE),
+		                                                 options.containsKey(Options.ENABLED_ONLY)));
+	}
+
+	private static int parserThreads(String value) {
+		if (value == null) {
+			return 1;
+		}
+		try {
+			int threads = Integer.parseInt(value.trim());
+			if (threads > 0) {
+				return threads;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Wrong value of the " + Options.PARSER_THREADS + " option: " + value);
+	}
+
+	private static String metricsReport(Map<String, String> options) {
+		String value = options.get(Options.METRICS);
+		if (options.containsKey(Options.METRICS) && (value == null || value.trim().isEmpty())) {
+			throw new IllegalArgumentException("The " + Options.METRICS + " option requires the path of the report");
+		}
+		return value;
+	}
+
+	private static List<String> templatesPath(String value) {
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		List<String> directories = new ArrayList<>();
+		for (String directory : value.split(File.pathSeparator)) {
+			if (!directory.trim().isEmpty()) {
+				directories.add(directory.trim());
+			}
+		}
+		return Collections.unmodifiableList(directories);
+	}
+
+	public Configuration withConcatStrategy(ConcatStrategy concatStrategy) {
+		return new Configuration(callToStringExplicitlyInInterpolations,
+		                         concatStrategy,
+		                         guardLoggerCalls,
+		                         parserThreads,
+		                         metricsReport,
+		                         profileInterpolations,
+		                         templatesPath,
+		                         scope);
+	}
+
+	public boolean isCallToStringExplicitlyInInterpolations() {
+		return callToStringExplicitlyInInterpolations;
+	}
+
+	public ConcatStrategy getConcatStrategy() {
+		return concatStrategy;
+	}
+
+	public boolean isGuardLoggerCalls() {
+		return guardLoggerCalls;
+	}
+
+	public int getParserThreads() {
+		return parserThreads;
+	}
+
+	/**
+	 * @return the path of the metrics report or {@code null} when it isn't required
+	 */
+	public String getMetricsReport() {
+		return metricsReport;
+	}
+
+	public boolean isProfileInterpolations() {
+		return profileInterpolations;
+	}
+
+	/**
+	 * @return directories of templates from the {@link Options#TEMPLATES_PATH} option
+	 */
+	public List<String> getTemplatesPath() {
+		return templatesPath;
+	}
+
+	/**
+	 * @return types which are translated
+	 */
+	public InterpolationScope getScope() {
+		return scope;
+	}
+}
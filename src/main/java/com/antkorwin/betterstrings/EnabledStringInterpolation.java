@@ -0,0 +1,16 @@
+package com.antkorwin.betterstrings;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The top-level type, or the package in its `package-info.java`, whose string literals
+ * are interpolated when the {@link Options#ENABLED_ONLY} option is set, other compilation
+ * units are skipped without reading their code.
+ */
+@Target({ElementType.TYPE, ElementType.PACKAGE})
+public @interface EnabledStringInterpolation {
+
+}
@@ -0,0 +1,32 @@
+package com.antkorwin.betterstrings;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The class whose `toString()` is generated from an interpolated template:
+ * <pre>
+ * &#64;FastToString("Order(id=${id}, qty=${qty})")
+ * public class Order { ... }
+ * </pre>
+ * The default template is the name of the class with its instance fields:
+ * `Order(id=${id}, qty=${qty}, customer=${customer})`.
+ * <p>
+ * The string is concatenated by `invokedynamic` for the target 9 and above,
+ * and by the presized {@link StringBuilder} for the target 8,
+ * values of primitive fields aren't boxed.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface FastToString {
+
+	/**
+	 * @return the string literal with interpolations, fields of the class are available
+	 * in expressions, the default template is built from instance fields when it's empty
+	 */
+	String value() default "";
+}
@@ -0,0 +1,338 @@
+package com.antkorwin.betterstrings;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.IllegalFormatConversionException;
+import java.util.Locale;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Formatting of expressions with a format specifier, e.g. `${price:%.2f}` or `${id:%08d}`.
+ * <p>
+ * The generated code calls these methods with the width, the precision and flags
+ * which are parsed and checked by the processor, so nothing is parsed at runtime
+ * and there is no {@link java.util.Formatter}. The result is the same as
+ * {@code String.format(Locale.ROOT, ...)} gives: the decimal separator is `.`,
+ * the grouping separator is `,`, and the value of a wrong type throws
+ * {@link IllegalFormatConversionException}. The only difference is the null,
+ * which is `null` regardless of the precision.
+ */
+public final class Formats {
+
+	public static final int LEFT_JUSTIFY = 1;
+	public static final int ZERO_PAD = 1 << 1;
+	public static final int PLUS = 1 << 2;
+	public static final int GROUPING = 1 << 3;
+	public static final int ALTERNATE = 1 << 4;
+	public static final int UPPER_CASE = 1 << 5;
+
+	private Formats() {
+	}
+
+	/**
+	 * `%d`, the decimal integer.
+	 */
+	public static String decimal(long value, int width, int flags) {
+		String digits = Long.toString(value);
+		StringBuilder result = new StringBuilder(Math.max(width, digits.length() + 8));
+		if (value < 0) {
+			result.append('-');
+			appendInteger(result, digits, 1, flags);
+		} else {
+			appendSign(result, flags);
+			appendInteger(result, digits, 0, flags);
+		}
+		return pad(result, width, flags);
+	}
+
+	/**
+	 * `%d` of a boxed integer or {@link BigInteger}.
+	 */
+	public static String decimal(Object value, int width, int flags) {
+		if (value == null) {
+			return string(null, -1, width, flags);
+		}
+		if (value instanceof Long || value instanceof Integer ||
+		    value instanceof Short || value instanceof Byte) {
+			return decimal(((Number) value).longValue(), width, flags);
+		}
+		if (value instanceof BigInteger) {
+			BigInteger integer = (BigInteger) value;
+			StringBuilder result = new StringBuilder(Math.max(width, 16));
+			if (integer.signum() < 0) {
+				result.append('-');
+			} else {
+				appendSign(result, flags);
+			}
+			appendInteger(result, integer.abs().toString(), 0, flags);
+			return pad(result, width, flags);
+		}
+		throw new IllegalFormatConversionException('d', value.getClass());
+	}
+
+	/**
+	 * `%x`, the hexadecimal integer in two's complement.
+	 */
+	public static String hex(long value, int width, int flags) {
+		return hexDigits("", Long.toHexString(value), width, flags);
+	}
+
+	public static String hex(int value, int width, int flags) {
+		return hexDigits("", Integer.toHexString(value), width, flags);
+	}
+
+	public static String hex(short value, int width, int flags) {
+		return hexDigits("", Integer.toHexString(value & 0xFFFF), width, flags);
+	}
+
+	public static String hex(byte value, int width, int flags) {
+		return hexDigits("", Integer.toHexString(value & 0xFF), width, flags);
+	}
+
+	/**
+	 * `%x` of a boxed integer or {@link BigInteger}, which is signed.
+	 */
+	public static String hex(Object value, int width, int flags) {
+		if (value == null) {
+			return string(null, -1, width, flags);
+		}
+		if (value instanceof Long) {
+			return hex((long) (Long) value, width, flags);
+		}
+		if (value instanceof Integer) {
+			return hex((int) (Integer) value, width, flags);
+		}
+		if (value instanceof Short) {
+			return hex((short) (Short) value, width, flags);
+		}
+		if (value instanceof Byte) {
+			return hex((byte) (Byte) value, width, flags);
+		}
+		if (value instanceof BigInteger) {
+			BigInteger integer = (BigInteger) value;
+			String digits = integer.abs().toString(16);
+			return hexDigits(integer.signum() < 0 ? "-" : "", digits, width, flags);
+		}
+		throw new IllegalFormatConversionException('x', value.getClass());
+	}
+
+	/**
+	 * `%.2f`, the decimal number with the fixed number of digits after the point,
+	 * which is rounded {@link RoundingMode#HALF_UP half up}.
+	 */
+	public static String fixed(double value, int precision, int width, int flags) {
+		if (Double.isNaN(value)) {
+			return justify("NaN", width, flags);
+		}
+		StringBuilder result = new StringBuilder(Math.max(width, 24 + precision));
+		if (Double.compare(value, 0.0) < 0) {
+			result.append('-');
+		} else {
+			appendSign(result, flags);
+		}
+		double abs = Math.abs(value);
+		if (Double.isInfinite(abs)) {
+			return justify(result.append("Infinity").toString(), width, flags);
+		}
+		int start = result.length();
+		appendFixed(result, Double.toString(abs), precision);
+		if ((flags & GROUPING) != 0) {
+			group(result, start, integerEnd(result, start));
+		}
+		return pad(result, width, flags);
+	}
+
+	/**
+	 * `%.2f` of a boxed number or {@link BigDecimal}.
+	 */
+	public static String fixed(Object value, int precision, int width, int flags) {
+		if (value == null) {
+			return string(null, -1, width, flags);
+		}
+		if (value instanceof BigInteger) {
+			value = new BigDecimal((BigInteger) value);
+		}
+		if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			StringBuilder result = new StringBuilder(Math.max(width, 24 + precision));
+			if (decimal.signum() < 0) {
+				result.append('-');
+			} else {
+				appendSign(result, flags);
+			}
+			int start = result.length();
+			result.append(decimal.abs().setScale(precision, RoundingMode.HALF_UP).toPlainString());
+			if ((flags & GROUPING) != 0) {
+				group(result, start, integerEnd(result, start));
+			}
+			return pad(result, width, flags);
+		}
+		if (value instanceof Number) {
+			return fixed(((Number) value).doubleValue(), precision, width, flags);
+		}
+		throw new IllegalFormatConversionException('f', value.getClass());
+	}
+
+	/**
+	 * `%s`, the string of a value, the precision is the maximal length of the string.
+	 */
+	public static String string(Object value, int precision, int width, int flags) {
+		String string = String.valueOf(value);
+		if (precision >= 0 && precision < string.length()) {
+			string = string.substring(0, precision);
+		}
+		if ((flags & UPPER_CASE) != 0) {
+			string = string.toUpperCase(Locale.ROOT);
+		}
+		return justify(string, width, flags);
+	}
+
+	private static String hexDigits(String sign, String digits, int width, int flags) {
+		boolean upperCase = (flags & UPPER_CASE) != 0;
+		StringBuilder result = new StringBuilder(Math.max(width, digits.length() + 3));
+		result.append(sign);
+		if ((flags & ALTERNATE) != 0) {
+			result.append(upperCase ? "0X" : "0x");
+		}
+		int start = result.length();
+		result.append(digits);
+		if (upperCase) {
+			for (int i = start; i < result.length(); i++) {
+				result.setCharAt(i, Character.toUpperCase(result.charAt(i)));
+			}
+		}
+		return pad(result, width, flags);
+	}
+
+	private static void appendSign(StringBuilder result, int flags) {
+		if ((flags & PLUS) != 0) {
+			result.append('+');
+		}
+	}
+
+	private static void appendInteger(StringBuilder result, String digits, int from, int flags) {
+		int start = result.length();
+		result.append(digits, from, digits.length());
+		if ((flags & GROUPING) != 0) {
+			group(result, start, result.length());
+		}
+	}
+
+	/**
+	 * Appends digits of the positive number in the decimal notation of {@link Double#toString}
+	 * (e.g. `12.5` or `1.25E-7`) rounded to the given number of digits after the point.
+	 */
+	private static void appendFixed(StringBuilder result, String decimal, int precision) {
+		int exponentIndex = decimal.indexOf('E');
+		int mantissaEnd = exponentIndex < 0 ? decimal.length() : exponentIndex;
+		// significant digits without leading zeros and the position of the point in them
+		char[] digits = new char[mantissaEnd];
+		int length = 0;
+		int point = 0;
+		boolean fraction = false;
+		for (int i = 0; i < mantissaEnd; i++) {
+			char c = decimal.charAt(i);
+			if (c == '.') {
+				point = length;
+				fraction = true;
+			} else if (c != '0' || length > 0) {
+				digits[length++] = c;
+			} else if (fraction) {
+				point--;
+			}
+		}
+		if (length == 0) {
+			point = 0;
+		} else if (exponentIndex >= 0) {
+			point += Integer.parseInt(decimal.substring(exponentIndex + 1));
+		}
+		int kept = point + precision;
+		if (kept < length) {
+			boolean roundUp = kept >= 0 && digits[kept] >= '5';
+			length = Math.max(kept, 0);
+			if (roundUp) {
+				int i = length - 1;
+				while (i >= 0 && digits[i] == '9') {
+					i--;
+				}
+				if (i >= 0) {
+					digits[i]++;
+					length = i + 1;
+				} else {
+					// 9.99 -> 10.0, all kept digits are nines
+					digits[0] = '1';
+					length = 1;
+					point++;
+				}
+			}
+		}
+		if (point <= 0) {
+			result.append('0');
+		} else {
+			for (int i = 0; i < point; i++) {
+				result.append(i < length ? digits[i] : '0');
+			}
+		}
+		if (precision > 0) {
+			result.append('.');
+			for (int i = point; i < point + precision; i++) {
+				result.append(i >= 0 && i < length ? digits[i] : '0');
+			}
+		}
+	}
+
+	private static int integerEnd(StringBuilder result, int start) {
+		int end = start;
+		while (end < result.length() && result.charAt(end) != '.') {
+			end++;
+		}
+		return end;
+	}
+
+	/**
+	 * Inserts `,` between groups of three digits from the start to the end.
+	 */
+	private static void group(StringBuilder result, int start, int end) {
+		for (int i = end - 3; i > start; i -= 3) {
+			result.insert(i, ',');
+		}
+	}
+
+	/**
+	 * Pads the number by zeros after the sign (and the prefix) or by spaces up to the width.
+	 */
+	private static String pad(StringBuilder result, int width, int flags) {
+		if ((flags & ZERO_PAD) != 0 && result.length() < width) {
+			int start = result.charAt(0) == '-' || result.charAt(0) == '+' ? 1 : 0;
+			if (start + 1 < result.length() && result.charAt(start) == '0' &&
+			    (result.charAt(start + 1) == 'x' || result.charAt(start + 1) == 'X')) {
+				start += 2;
+			}
+			char[] zeros = new char[width - result.length()];
+			Arrays.fill(zeros, '0');
+			result.insert(start, zeros);
+			return result.toString();
+		}
+		return justify(result.toString(), width, flags);
+	}
+
+	private static String justify(String value, int width, int flags) {
+		if (value.length() >= width) {
+			return value;
+		}
+		StringBuilder result = new StringBuilder(width);
+		if ((flags & LEFT_JUSTIFY) != 0) {
+			result.append(value);
+		}
+		for (int i = value.length(); i < width; i++) {
+			result.append(' ');
+		}
+		if ((flags & LEFT_JUSTIFY) == 0) {
+			result.append(value);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,28 @@
+package com.antkorwin.betterstrings;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The abstract method which renders a template file, e.g.
+ * `@InterpolatedTemplate("templates/invoice.txt") String invoice(Order order);`
+ * <p>
+ * The template is read at compile time and becomes the interpolated literal
+ * of the method in the generated implementation of the type (`InvoicesImpl`
+ * for `Invoices`), so parameters of the method are available in expressions
+ * of the template as well as imports of the source file.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.SOURCE)
+public @interface InterpolatedTemplate {
+
+	/**
+	 * @return the path of the template in the source path, the class path,
+	 * or in directories of the {@link Options#TEMPLATES_PATH} option
+	 */
+	String value();
+}
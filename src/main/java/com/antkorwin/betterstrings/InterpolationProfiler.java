@@ -0,0 +1,106 @@
+package com.antkorwin.betterstrings;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The registry of interpolated string literals which are compiled
+ * with the {@link Options#PROFILE_INTERPOLATIONS} option.
+ * <p>
+ * The code of each literal passes the produced string through {@link #record},
+ * when the recording is started, the registry counts strings of the literal and
+ * their length in striped counters, so threads don't contend on a hot literal.
+ * When the recording is stopped, `record` is just a read of a volatile field.
+ * <p>
+ * The recording is started by {@link #start()} or by the system property
+ * `-DbetterStrings.profile=true`, the top literals are available by {@link #top(int)}
+ * and {@link #dump(int)}.
+ */
+public final class InterpolationProfiler {
+
+	/**
+	 * The system property which starts the recording when the registry is loaded.
+	 */
+	public static final String RECORDING_PROPERTY = "betterStrings.profile";
+
+	private static final ConcurrentMap<String, InterpolationSite> SITES = new ConcurrentHashMap<>();
+
+	private static volatile boolean recording = Boolean.getBoolean(RECORDING_PROPERTY);
+
+	private InterpolationProfiler() {
+	}
+
+	/**
+	 * Used by the generated code.
+	 *
+	 * @param id       the source file, the line and the column of the literal
+	 * @param template the text of the literal
+	 * @param value    the string produced by the literal
+	 * @return the value
+	 */
+	public static String record(String id, String template, String value) {
+		if (recording) {
+			InterpolationSite site = SITES.get(id);
+			if (site == null) {
+				site = SITES.computeIfAbsent(id, key -> new InterpolationSite(key, template));
+			}
+			site.record(value.length());
+		}
+		return value;
+	}
+
+	public static void start() {
+		recording = true;
+	}
+
+	public static void stop() {
+		recording = false;
+	}
+
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Drops counters of all literals, the recording goes on if it's started.
+	 */
+	public static void reset() {
+		SITES.values().forEach(InterpolationSite::reset);
+	}
+
+	/**
+	 * @param limit the maximal number of literals
+	 * @return literals which produced the longest strings in total, the longest first
+	 */
+	public static List<InterpolationSite> top(int limit) {
+		List<InterpolationSite> sites = new ArrayList<>(SITES.values());
+		sites.removeIf(site -> site.getCount() == 0);
+		sites.sort(Comparator.comparingLong(InterpolationSite::getLength).reversed());
+		return sites.subList(0, Math.min(limit, sites.size()));
+	}
+
+	/**
+	 * @param limit the maximal number of literals
+	 * @return the table of {@link #top(int)} literals with the number
+	 * of strings, their total and average length
+	 */
+	public static String dump(int limit) {
+		StringBuilder dump = new StringBuilder(String.format("%12s %14s %8s  %s%n", "count", "length", "average", "literal"));
+		for (InterpolationSite site : top(limit)) {
+			long count = site.getCount();
+			long length = site.getLength();
+			dump.append(String.format("%12d %14d %8d  %s \"%s\"%n",
+			                          count,
+			                          length,
+			                          count == 0 ? 0 : length / count,
+			                          site.getId(),
+			                          site.getTemplate()));
+		}
+		return dump.toString();
+	}
+}
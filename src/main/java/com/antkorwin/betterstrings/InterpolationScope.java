@@ -0,0 +1,112 @@
+package com.antkorwin.betterstrings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Top-level types whose compilation units are translated, made from the
+ * {@link Options#INCLUDE}, {@link Options#EXCLUDE} and {@link Options#ENABLED_ONLY} options.
+ * <p>
+ * Patterns are globs over qualified names of types separated by commas: `*` is any part
+ * of a name without dots, `**` is any part with dots, e.g. `com.acme.billing.**` is
+ * the package with its subpackages, `com.acme.api.*` is the package without them.
+ * A type is in the scope if it matches an include pattern (any type if there are none)
+ * and doesn't match exclude patterns.
+ */
+public final class InterpolationScope {
+
+	private static final InterpolationScope EVERYTHING = new InterpolationScope(Collections.emptyList(),
+	                                                                            Collections.emptyList(),
+	                                                                            false);
+
+	private final List<Pattern> includes;
+	private final List<Pattern> excludes;
+	private final boolean enabledOnly;
+
+	private InterpolationScope(List<Pattern> includes, List<Pattern> excludes, boolean enabledOnly) {
+		this.includes = includes;
+		this.excludes = excludes;
+		this.enabledOnly = enabledOnly;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if a pattern isn't a glob of qualified names
+	 */
+	public static InterpolationScope from(String include, String exclude, boolean enabledOnly) {
+		if (include == null && exclude == null && !enabledOnly) {
+			return EVERYTHING;
+		}
+		return new InterpolationScope(patterns(Options.INCLUDE, include),
+		                              patterns(Options.EXCLUDE, exclude),
+		                              enabledOnly);
+	}
+
+	private static List<Pattern> patterns(String option, String value) {
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		List<Pattern> patterns = new ArrayList<>();
+		for (String glob : value.split(",")) {
+			if (!glob.trim().isEmpty()) {
+				patterns.add(pattern(option, glob.trim()));
+			}
+		}
+		return Collections.unmodifiableList(patterns);
+	}
+
+	private static Pattern pattern(String option, String glob) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+				regex.append(".*");
+				i++;
+			} else if (c == '*') {
+				regex.append("[^.]*");
+			} else if (c == '.') {
+				regex.append("\\.");
+			} else if (Character.isJavaIdentifierPart(c)) {
+				regex.append(c);
+			} else {
+				throw new IllegalArgumentException("Wrong pattern `" + glob + "` of the " + option + " option, " +
+				                                   "only names with `*` and `**` are supported");
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	/**
+	 * @return true if all types are translated, so they aren't checked
+	 */
+	public boolean isEverything() {
+		return this == EVERYTHING;
+	}
+
+	/**
+	 * @param typeName the qualified name of a top-level type
+	 * @return true if the name is in the scope of patterns
+	 */
+	public boolean includes(String typeName) {
+		return (includes.isEmpty() || matches(includes, typeName)) && !matches(excludes, typeName);
+	}
+
+	/**
+	 * @return true if only types and packages annotated by {@link EnabledStringInterpolation} are translated
+	 */
+	public boolean isEnabledOnly() {
+		return enabledOnly;
+	}
+
+	private static boolean matches(List<Pattern> patterns, String typeName) {
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(typeName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,66 @@
+package com.antkorwin.betterstrings;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Counters of one interpolated string literal in the code,
+ * see {@link InterpolationProfiler}.
+ */
+public final class InterpolationSite {
+
+	private final String id;
+	private final String template;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder length = new LongAdder();
+
+	InterpolationSite(String id, String template) {
+		this.id = id;
+		this.template = template;
+	}
+
+	void record(int producedLength) {
+		count.increment();
+		length.add(producedLength);
+	}
+
+	void reset() {
+		count.reset();
+		length.reset();
+	}
+
+	/**
+	 * @return the source file, the line and the column of the literal,
+	 * e.g. `com/example/OrderService.java:42:17`
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the text of the literal, e.g. `order ${id} not found`
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @return the number of strings which are produced by the literal
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of lengths of the produced strings
+	 */
+	public long getLength() {
+		return length.sum();
+	}
+
+	@Override
+	public String toString() {
+		return id + " " + template + " count=" + getCount() + " length=" + getLength();
+	}
+}
@@ -0,0 +1,79 @@
+package com.antkorwin.betterstrings;
+
+import java.util.function.Supplier;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The string which is concatenated on the first read,
+ * it's the result of {@link BetterStrings#lazy(String)}.
+ * <p>
+ * Values of expressions are captured when the lazy string is created,
+ * their `toString()` is called and the result is concatenated only when
+ * the string is read, then the result is reused by next reads.
+ */
+public final class LazyString implements CharSequence, Supplier<String> {
+
+	private final Object[] parts;
+
+	/**
+	 * The result of the concatenation, it's computed by each thread
+	 * which doesn't see it yet, as the hash code of a {@link String}.
+	 */
+	private String value;
+
+	/**
+	 * Used by the generated code.
+	 *
+	 * @param parts texts and values of expressions of a string literal in the order of the literal
+	 */
+	public LazyString(Object[] parts) {
+		this.parts = parts;
+	}
+
+	@Override
+	public String toString() {
+		String result = value;
+		if (result == null) {
+			result = concat(parts);
+			value = result;
+		}
+		return result;
+	}
+
+	@Override
+	public String get() {
+		return toString();
+	}
+
+	@Override
+	public int length() {
+		return toString().length();
+	}
+
+	@Override
+	public char charAt(int index) {
+		return toString().charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().subSequence(start, end);
+	}
+
+	private static String concat(Object[] parts) {
+		if (parts.length == 1 && parts[0] instanceof String) {
+			return (String) parts[0];
+		}
+		StringBuilder result = new StringBuilder();
+		for (Object part : parts) {
+			// as String.valueOf(char[]) in other interpolations
+			if (part instanceof char[]) {
+				result.append((char[]) part);
+			} else {
+				result.append(part);
+			}
+		}
+		return result.toString();
+	}
+}
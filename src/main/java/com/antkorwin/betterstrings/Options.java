@@ -4,4 +4,55 @@ public final class Options {
   private Options() {}
 
   public static final String CALL_TO_STRING_EXPLICITLY_IN_INTERPOLATIONS = "callToStringExplicitlyInInterpolations";
+
+  /**
+   * One of {@link ConcatStrategy} option values, `valueOf` by default.
+   */
+  public static final String CONCAT_STRATEGY = "concatStrategy";
+
+  /**
+   * Wrap logger calls with interpolated messages (e.g. `log.debug("${x}")`)
+   * in the check of the level: `if (log.isDebugEnabled()) ...`
+   */
+  public static final String GUARD_LOGGER_CALLS = "guardLoggerCalls";
+
+  /**
+   * The number of threads which parse expressions of one source file, `1` by default,
+   * files with a few hundreds of expressions are always parsed by the compiler thread.
+   */
+  public static final String PARSER_THREADS = "parserThreads";
+
+  /**
+   * The path of the JSON report with counters of the processor and time of its phases,
+   * it's written at the end of the compilation and its summary is printed as a note.
+   */
+  public static final String METRICS = "metrics";
+
+  /**
+   * Pass strings of interpolated literals through {@link InterpolationProfiler},
+   * which counts strings and their length of each literal when the recording is started.
+   */
+  public static final String PROFILE_INTERPOLATIONS = "profileInterpolations";
+
+  /**
+   * Directories of templates of {@link InterpolatedTemplate} methods separated by the path separator,
+   * they're searched before the source path and the class path.
+   */
+  public static final String TEMPLATES_PATH = "templatesPath";
+
+  /**
+   * Globs of qualified names of top-level types which are translated separated by commas,
+   * e.g. `com.acme.billing.**,com.acme.api.*`, see {@link InterpolationScope}.
+   */
+  public static final String INCLUDE = "include";
+
+  /**
+   * Globs of qualified names of top-level types which aren't translated, they win over {@link #INCLUDE}.
+   */
+  public static final String EXCLUDE = "exclude";
+
+  /**
+   * Translate only types and packages annotated by {@link EnabledStringInterpolation}.
+   */
+  public static final String ENABLED_ONLY = "enabledOnly";
 }
@@ -0,0 +1,208 @@
+package com.antkorwin.betterstrings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Counters of the processor and time which it spends in phases of the translation,
+ * they're collected by the thread of the compiler during one compilation
+ * and are available by {@link BetterStringsProcessor#getMetrics()}
+ * or in the report of the {@link Options#METRICS} option.
+ */
+public final class ProcessingMetrics {
+
+	private int unitsScanned;
+	private int unitsSkipped;
+	private int literalsVisited;
+	private int literalsRewritten;
+	private int expressionsParsed;
+	private int parseCacheHits;
+
+	private long tokenizerNanos;
+	private long parserNanos;
+	private long translationNanos;
+	private long loweringNanos;
+
+	/**
+	 * Time of the translation and the lowering of each source file.
+	 */
+	private final Map<String, Long> fileNanos = new HashMap<>();
+
+	/**
+	 * A compilation unit is translated.
+	 */
+	public void unitScanned() {
+		unitsScanned++;
+	}
+
+	/**
+	 * A compilation unit isn't translated, there are no interpolations in its source.
+	 */
+	public void unitSkipped() {
+		unitsSkipped++;
+	}
+
+	/**
+	 * A string literal is visited by the translation.
+	 */
+	public void literalVisited() {
+		literalsVisited++;
+	}
+
+	/**
+	 * A string literal is replaced with the code of its interpolation.
+	 */
+	public void literalRewritten() {
+		literalsRewritten++;
+	}
+
+	/**
+	 * @param expressions expressions of literals which are given to the parser
+	 * @param cacheHits   expressions of them which are copied from the cache
+	 */
+	public void addExpressionsParsed(int expressions, int cacheHits) {
+		expressionsParsed += expressions;
+		parseCacheHits += cacheHits;
+	}
+
+	/**
+	 * @param nanos time of splitting of string literals into tokens
+	 */
+	public void addTokenizerNanos(long nanos) {
+		tokenizerNanos += nanos;
+	}
+
+	/**
+	 * @param nanos time of parsing of expressions, including the time of parser threads
+	 *              which the compiler thread spends waiting for them
+	 */
+	public void addParserNanos(long nanos) {
+		parserNanos += nanos;
+	}
+
+	/**
+	 * @param file  name of the translated source file
+	 * @param nanos the whole time of the translation of the compilation unit,
+	 *              including tokenizing and parsing
+	 */
+	public void addTranslationNanos(String file, long nanos) {
+		translationNanos += nanos;
+		fileNanos.merge(file, nanos, Long::sum);
+	}
+
+	/**
+	 * @param file  name of the source file of the lowered class
+	 * @param nanos time of the second phase of the translation, when the class is attributed
+	 */
+	public void addLoweringNanos(String file, long nanos) {
+		loweringNanos += nanos;
+		fileNanos.merge(file, nanos, Long::sum);
+	}
+
+	public int getUnitsScanned() {
+		return unitsScanned;
+	}
+
+	public int getUnitsSkipped() {
+		return unitsSkipped;
+	}
+
+	public int getLiteralsVisited() {
+		return literalsVisited;
+	}
+
+	public int getLiteralsRewritten() {
+		return literalsRewritten;
+	}
+
+	public int getExpressionsParsed() {
+		return expressionsParsed;
+	}
+
+	public int getParseCacheHits() {
+		return parseCacheHits;
+	}
+
+	public long getTokenizerNanos() {
+		return tokenizerNanos;
+	}
+
+	public long getParserNanos() {
+		return parserNanos;
+	}
+
+	/**
+	 * @return time of the translation of trees without tokenizing and parsing
+	 */
+	public long getTranslatorNanos() {
+		return Math.max(0, translationNanos - tokenizerNanos - parserNanos);
+	}
+
+	public long getLoweringNanos() {
+		return loweringNanos;
+	}
+
+	/**
+	 * @return the whole time which the processor adds to the compilation
+	 */
+	public long getTotalNanos() {
+		return translationNanos + loweringNanos;
+	}
+
+	/**
+	 * @param limit the maximal number of files
+	 * @return names of source files with the longest translation (and lowering), the slowest first
+	 */
+	public List<Map.Entry<String, Long>> getSlowestFiles(int limit) {
+		List<Map.Entry<String, Long>> files = new ArrayList<>(fileNanos.entrySet());
+		files.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+		return files.subList(0, Math.min(limit, files.size()));
+	}
+
+	/**
+	 * @param slowestFiles the number of the slowest files in the report
+	 * @return the report in JSON
+	 */
+	public String toJson(int slowestFiles) {
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("  \"unitsScanned\": ").append(unitsScanned).append(",\n")
+		    .append("  \"unitsSkipped\": ").append(unitsSkipped).append(",\n")
+		    .append("  \"literalsVisited\": ").append(literalsVisited).append(",\n")
+		    .append("  \"literalsRewritten\": ").append(literalsRewritten).append(",\n")
+		    .append("  \"expressionsParsed\": ").append(expressionsParsed).append(",\n")
+		    .append("  \"parseCacheHits\": ").append(parseCacheHits).append(",\n")
+		    .append("  \"nanos\": {\n")
+		    .append("    \"tokenizer\": ").append(tokenizerNanos).append(",\n")
+		    .append("    \"parser\": ").append(parserNanos).append(",\n")
+		    .append("    \"translator\": ").append(getTranslatorNanos()).append(",\n")
+		    .append("    \"lowering\": ").append(loweringNanos).append(",\n")
+		    .append("    \"total\": ").append(getTotalNanos()).append("\n")
+		    .append("  },\n")
+		    .append("  \"slowestFiles\": [");
+		List<Map.Entry<String, Long>> files = getSlowestFiles(slowestFiles);
+		for (int i = 0; i < files.size(); i++) {
+			json.append(i == 0 ? "\n" : ",\n")
+			    .append("    {\"file\": ").append(quote(files.get(i).getKey()))
+			    .append(", \"nanos\": ").append(files.get(i).getValue()).append("}");
+		}
+		return json.append(files.isEmpty() ? "]\n" : "\n  ]\n").append("}\n").toString();
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < ' ') {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
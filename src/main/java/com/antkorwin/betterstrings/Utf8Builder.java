@@ -0,0 +1,240 @@
+package com.antkorwin.betterstrings;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * UTF-8 bytes of a string literal in {@link BetterStrings#utf8(String)} and
+ * {@link BetterStrings#writeUtf8(ByteBuffer, String)}, used by the generated code:
+ * <pre>
+ * Utf8Builder.of(21).encoded("id=").append(id).encoded(";").toBytes()
+ * </pre>
+ * Texts of the literal are encoded at compile time, the argument of {@link #encoded(String)}
+ * is a string where each char is a byte of the text, so it's copied into the bytes without
+ * encoding. Numbers are written as digits without their strings, strings are encoded
+ * by the fast path while their chars are ASCII.
+ * <p>
+ * The bytes are written straight into the array of a heap {@link ByteBuffer},
+ * a direct buffer gets them by one `put` at the end. Unlike {@link ByteBuffer#put(byte[])},
+ * the overflow of a heap buffer leaves the bytes which are written before it
+ * after the position of the buffer, its position isn't changed.
+ */
+public final class Utf8Builder {
+
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+	private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+	private static final byte REPLACEMENT = '?';
+
+	private final ByteBuffer buffer;
+	private byte[] bytes;
+	private int position;
+	private int limit;
+
+	private Utf8Builder(ByteBuffer buffer, byte[] bytes, int position, int limit) {
+		this.buffer = buffer;
+		this.bytes = bytes;
+		this.position = position;
+		this.limit = limit;
+	}
+
+	/**
+	 * @param capacity the expected number of bytes
+	 * @return the builder of a new array of bytes
+	 */
+	public static Utf8Builder of(int capacity) {
+		return new Utf8Builder(null, new byte[capacity], 0, -1);
+	}
+
+	/**
+	 * @param buffer the target, bytes are written from its position,
+	 *               bytes of a heap buffer after its position may be overwritten on the overflow
+	 * @return the builder which writes into the buffer
+	 */
+	public static Utf8Builder to(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			return new Utf8Builder(buffer,
+			                       buffer.array(),
+			                       buffer.arrayOffset() + buffer.position(),
+			                       buffer.arrayOffset() + buffer.limit());
+		}
+		return new Utf8Builder(buffer, new byte[Math.min(buffer.remaining(), 64)], 0, buffer.remaining());
+	}
+
+	/**
+	 * @param encoded bytes of a text, a char for each byte
+	 */
+	@SuppressWarnings("deprecation")
+	public Utf8Builder encoded(String encoded) {
+		int length = encoded.length();
+		ensure(length);
+		// copies low bytes of chars, it's the copy of the array of a compact string
+		encoded.getBytes(0, length, bytes, position);
+		position += length;
+		return this;
+	}
+
+	public Utf8Builder append(String value) {
+		if (value == null) {
+			return put(NULL);
+		}
+		int length = value.length();
+		ensure(length);
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x80) {
+				return appendChars(value, i, length);
+			}
+			bytes[position++] = (byte) c;
+		}
+		return this;
+	}
+
+	public Utf8Builder append(CharSequence value) {
+		if (value == null) {
+			return put(NULL);
+		}
+		return appendChars(value, 0, value.length());
+	}
+
+	/**
+	 * As {@code String.valueOf(char[])} in other interpolations, an array of chars is encoded as a text.
+	 */
+	public Utf8Builder append(Object value) {
+		if (value instanceof char[]) {
+			char[] chars = (char[]) value;
+			return appendChars(CharBuffer.wrap(chars), 0, chars.length);
+		}
+		return append(String.valueOf(value));
+	}
+
+	public Utf8Builder append(char value) {
+		if (value < 0x80) {
+			ensure(1);
+			bytes[position++] = (byte) value;
+			return this;
+		}
+		return appendChars(String.valueOf(value), 0, 1);
+	}
+
+	public Utf8Builder append(int value) {
+		return append((long) value);
+	}
+
+	public Utf8Builder append(long value) {
+		if (value == Long.MIN_VALUE) {
+			return put(MIN_LONG);
+		}
+		boolean negative = value < 0;
+		long rest = negative ? -value : value;
+		int digits = 1;
+		for (long i = rest / 10; i > 0; i /= 10) {
+			digits++;
+		}
+		ensure(negative ? digits + 1 : digits);
+		if (negative) {
+			bytes[position++] = '-';
+		}
+		position += digits;
+		for (int i = position - 1; i >= position - digits; i--) {
+			bytes[i] = (byte) ('0' + rest % 10);
+			rest /= 10;
+		}
+		return this;
+	}
+
+	public Utf8Builder append(float value) {
+		return append(Float.toString(value));
+	}
+
+	public Utf8Builder append(double value) {
+		return append(Double.toString(value));
+	}
+
+	public Utf8Builder append(boolean value) {
+		return put(value ? TRUE : FALSE);
+	}
+
+	/**
+	 * @return the written bytes
+	 */
+	public byte[] toBytes() {
+		return position == bytes.length ? bytes : Arrays.copyOf(bytes, position);
+	}
+
+	/**
+	 * @return the buffer, its position is after the written bytes
+	 */
+	public ByteBuffer target() {
+		if (buffer.hasArray()) {
+			buffer.position(position - buffer.arrayOffset());
+		} else {
+			buffer.put(bytes, 0, position);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Encodes chars from the start as {@link String#getBytes(java.nio.charset.Charset)} does,
+	 * a surrogate without its pair becomes `?`.
+	 */
+	private Utf8Builder appendChars(CharSequence value, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				ensure(1);
+				bytes[position++] = (byte) c;
+			} else if (c < 0x800) {
+				ensure(2);
+				bytes[position++] = (byte) (0xC0 | c >> 6);
+				bytes[position++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					ensure(4);
+					bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+					bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+					bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+					bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+				} else {
+					ensure(1);
+					bytes[position++] = REPLACEMENT;
+				}
+			} else {
+				ensure(3);
+				bytes[position++] = (byte) (0xE0 | c >> 12);
+				bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+				bytes[position++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return this;
+	}
+
+	private Utf8Builder put(byte[] value) {
+		ensure(value.length);
+		System.arraycopy(value, 0, bytes, position, value.length);
+		position += value.length;
+		return this;
+	}
+
+	/**
+	 * The array of a new array grows, the limit of a buffer throws {@link BufferOverflowException}
+	 * as {@link ByteBuffer#put(byte[])} does, the position of the buffer isn't changed then,
+	 * but bytes which are already written stay in the array of a heap buffer.
+	 */
+	private void ensure(int length) {
+		int required = position + length;
+		if (limit >= 0 && required > limit) {
+			throw new BufferOverflowException();
+		}
+		if (required > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+		}
+	}
+}
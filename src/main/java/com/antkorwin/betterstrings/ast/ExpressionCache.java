@@ -0,0 +1,203 @@
+package com.antkorwin.betterstrings.ast;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Names;
+import com.sun.tools.javac.util.Options;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Bounded cache of parsed expressions, it is shared between all
+ * compilations in the same JVM (e.g. in a daemon of a build tool).
+ * <p>
+ * Entries are spread over segments, each segment is a LRU map
+ * guarded by its own lock, so parallel compilations rarely wait
+ * for each other. Trees are cached by the source level of the compilation
+ * too, the same code may be parsed differently (e.g. `var`, `yield` or
+ * switch expressions). Cached trees are templates: their names belong
+ * to the own name table of the cache and they must be copied
+ * before use, see {@link ExpressionParser}.
+ * <p>
+ * Names are never removed from a table, so the table is rolled over
+ * with all entries when as many entries are evicted as the cache holds,
+ * names of evicted entries don't stay in the memory for good.
+ */
+public class ExpressionCache {
+
+	private static final int SEGMENTS = 16;
+
+	private final Segment[] segments;
+	private final int maxSize;
+	private volatile Names names = newNames();
+
+	/**
+	 * Evictions before the last roll over of the name table, it is changed under the lock of the cache.
+	 */
+	private volatile long evictionsBeforeRollOver;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ExpressionCache(int maxSize) {
+		int segmentSize = Math.max(1, maxSize / SEGMENTS);
+		this.segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(segmentSize);
+		}
+		this.maxSize = segmentSize * SEGMENTS;
+	}
+
+	/**
+	 * Names of the unshared table keep their own bytes,
+	 * so it's safe to read them from any thread.
+	 */
+	private static Names newNames() {
+		Context context = new Context();
+		Options.instance(context).put("useUnsharedTable", "true");
+		return Names.instance(context);
+	}
+
+	JCTree.JCExpression get(String expression, String source, ExpressionWrapping wrapping) {
+		Key key = new Key(expression, source, wrapping);
+		Segment segment = segmentFor(key);
+		JCTree.JCExpression template;
+		synchronized (segment) {
+			template = segment.get(key);
+		}
+		if (template == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return template;
+	}
+
+	void put(String expression, String source, ExpressionWrapping wrapping, JCTree.JCExpression template) {
+		Key key = new Key(expression, source, wrapping);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, template);
+		}
+		if (evictions.sum() - evictionsBeforeRollOver >= maxSize) {
+			rollOver();
+		}
+	}
+
+	/**
+	 * Entries are evicted with the old name table, so it can be collected.
+	 */
+	private synchronized void rollOver() {
+		if (evictions.sum() - evictionsBeforeRollOver >= maxSize) {
+			evictions.add(size());
+			clear();
+			evictionsBeforeRollOver = evictions.sum();
+		}
+	}
+
+	/**
+	 * Name table of new templates, it isn't thread-safe,
+	 * so new names have to be added under the lock of this table.
+	 * The table is replaced when the cache is cleared or rolled over,
+	 * names of templates in the old table stay valid.
+	 */
+	Names getNames() {
+		return names;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all entries and starts a new name table.
+	 */
+	public void clear() {
+		names = newNames();
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Segment segmentFor(Key key) {
+		return segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+	}
+
+
+	private class Segment extends LinkedHashMap<Key, JCTree.JCExpression> {
+
+		private final int maxSize;
+
+		Segment(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, JCTree.JCExpression> eldest) {
+			if (size() > maxSize) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+
+	private static final class Key {
+
+		private final String expression;
+		private final String source;
+		private final ExpressionWrapping wrapping;
+		private final int hash;
+
+		Key(String expression, String source, ExpressionWrapping wrapping) {
+			this.expression = expression;
+			this.source = source;
+			this.wrapping = wrapping;
+			this.hash = 31 * (31 * expression.hashCode() + source.hashCode()) + wrapping.ordinal();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return wrapping == key.wrapping && source.equals(key.source) && expression.equals(key.expression);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
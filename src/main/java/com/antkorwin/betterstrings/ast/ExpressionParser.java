@@ -1,108 +1,428 @@
 package com.antkorwin.betterstrings.ast;
 
-import java.io.IOException;
-import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
 
-import javax.tools.JavaCompiler;
-import javax.tools.JavaFileManager;
-import javax.tools.JavaFileObject;
-import javax.tools.SimpleJavaFileObject;
-import javax.tools.ToolProvider;
-
+import com.antkorwin.betterstrings.Configuration;
 import com.antkorwin.betterstrings.tokenizer.Token;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.code.Source;
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.parser.JavacParser;
+import com.sun.tools.javac.parser.ParserFactory;
+import com.sun.tools.javac.parser.Tokens;
 import com.sun.tools.javac.tree.JCTree;
-import com.sun.tools.javac.tree.TreeTranslator;
+import com.sun.tools.javac.tree.TreeCopier;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Name;
 import com.sun.tools.javac.util.Names;
+import com.sun.tools.javac.util.Options;
 
+/**
+ * Parse the code of expressions from string literals
+ * by the parser of the current compilation, so the result
+ * trees share the {@link Names} table with the rest
+ * of the compilation unit.
+ * <p>
+ * Parsed expressions are kept in the {@link ExpressionCache}
+ * which is shared by all compilations in the JVM.
+ * <p>
+ * Many expressions of one file may be parsed on several threads of the common pool,
+ * each thread uses its own parser with its own name table,
+ * results are moved to the compilation on the compiler thread.
+ */
 public class ExpressionParser {
 
+	private static final ExpressionCache CACHE = new ExpressionCache(4096);
+
+	/**
+	 * Expressions of a file are parsed on other threads only if each thread gets at least so many of them.
+	 */
+	public static final int MIN_EXPRESSIONS_PER_THREAD = 256;
+
+	private final CodeParser parser;
+	private final Options options;
 	private final Names names;
-	private final boolean callToStringExplicitlyInInterpolations;
+	private final String source;
+	private final TreeCopier<Void> treeCopier;
+	private final ExpressionWrapping wrapping;
+	private final int threads;
+
+	/**
+	 * Expressions which this parser copied from the cache.
+	 */
+	private int cacheHits;
+
+	public ExpressionParser(Context context, Configuration configuration) {
+		this(context, ExpressionWrapping.of(configuration), configuration.getParserThreads());
+	}
 
-	public ExpressionParser(Names names, boolean callToStringExplicitlyInInterpolations) {
-		this.names = names;
-		this.callToStringExplicitlyInInterpolations = callToStringExplicitlyInInterpolations;
+	ExpressionParser(Context context, ExpressionWrapping wrapping, int threads) {
+		this.parser = new CodeParser(context, wrapping);
+		this.options = Options.instance(context);
+		this.names = Names.instance(context);
+		this.source = Source.instance(context).name;
+		this.treeCopier = new TreeCopier<>(TreeMaker.instance(context));
+		this.wrapping = wrapping;
+		this.threads = threads;
+	}
+
+	public static ExpressionCache getCache() {
+		return CACHE;
+	}
+
+	public int getCacheHits() {
+		return cacheHits;
 	}
 
 	public JCTree.JCExpression parse(Token token) {
-		CompilationUnitTree tree = getCompilationUnitTree(token.getValue());
-		JCTree.JCClassDecl declr = (JCTree.JCClassDecl) tree.getTypeDecls().get(0);
-		JCTree.JCVariableDecl field = (JCTree.JCVariableDecl) declr.getMembers().get(0);
-		JCTree.JCExpression expression = field.getInitializer();
-		expression.setPos(token.getOffset());
-		expression.accept(new IdentResolver(token.getOffset()));
-		return expression;
+		return parse(Collections.singletonList(token), (t, message) -> {
+			throw new RuntimeException(message);
+		}).get(0);
 	}
 
-	private CompilationUnitTree getCompilationUnitTree(String code) {
-
-		JavaCompiler tool = ToolProvider.getSystemJavaCompiler();
-		JavaFileManager fm = tool.getStandardFileManager(null, null, null);
-		JavacTaskImpl ct = (JavacTaskImpl) tool.getTask(null,
-		                                                fm,
-		                                                null,
-		                                                null,
-		                                                null,
-		                                                Collections.singletonList(new FakeJavaFileWrapper(code)));
-		try {
-			return ct.parse().iterator().next();
-		} catch (Exception e) {
-			// Depending on JDK version, `parse()` either throws or does not throw `IOException`;
-			// to avoid setup-dependent compilation errors, let's just catch Exception here.
-			e.printStackTrace();
-			throw new RuntimeException("Error while parsing expression in the string literal: " + code, e);
+	/**
+	 * Parse all expressions which are not found in the cache by one run of the parser,
+	 * each expression becomes a field of a synthetic class. If the parser reports any error
+	 * then expressions are parsed one by one to find all malformed of them.
+	 *
+	 * @param tokens  expressions to parse
+	 * @param onError receives a malformed token and the error message
+	 * @return parsed expressions in the order of tokens,
+	 * {@code null} in place of malformed expressions
+	 */
+	public List<JCTree.JCExpression> parse(List<Token> tokens, BiConsumer<Token, String> onError) {
+
+		List<JCTree.JCExpression> expressions = new ArrayList<>(tokens.size());
+		Map<String, List<Integer>> missed = new LinkedHashMap<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			String code = tokens.get(i).getValue();
+			JCTree.JCExpression template = missed.containsKey(code)
+			                               ? null
+			                               : CACHE.get(code, source, wrapping);
+			if (template != null) {
+				cacheHits++;
+				expressions.add(copy(template, names));
+			} else {
+				expressions.add(null);
+				missed.computeIfAbsent(code, c -> new ArrayList<>()).add(i);
+			}
+		}
+
+		if (!missed.isEmpty()) {
+			List<String> codes = new ArrayList<>(missed.keySet());
+			Map<String, String> errors = new LinkedHashMap<>();
+			List<JCTree.JCExpression> parsed = codes.size() >= 2 * MIN_EXPRESSIONS_PER_THREAD && threads > 1
+			                                   ? parseInParallel(codes, errors)
+			                                   : parser.parseCodes(codes, errors);
+			for (int i = 0; i < codes.size(); i++) {
+				String code = codes.get(i);
+				List<Integer> indexes = missed.get(code);
+				JCTree.JCExpression expression = parsed.get(i);
+				if (expression == null) {
+					indexes.forEach(index -> onError.accept(tokens.get(index), errors.get(code)));
+					continue;
+				}
+				toRelativePositions(expression);
+				CACHE.put(code, source, wrapping, copy(expression, CACHE.getNames()));
+				expressions.set(indexes.get(0), expression);
+				for (int j = 1; j < indexes.size(); j++) {
+					expressions.set(indexes.get(j), treeCopier.copy(expression));
+				}
+			}
 		}
+
+		for (int i = 0; i < tokens.size(); i++) {
+			if (expressions.get(i) != null) {
+				int offset = tokens.get(i).getOffset();
+				// the code is placed over its text in the literal and the wrapping over the `{`,
+				// javac of JDK 9+ caches types of method arguments by their positions
+				new PositionResolver(tree -> tree.pos < 0 ? offset - 1 : offset + tree.pos).scan(expressions.get(i));
+			}
+		}
+		return expressions;
 	}
 
-	private class FakeJavaFileWrapper extends SimpleJavaFileObject {
+	/**
+	 * Parse codes by a few tasks on the common pool, each task makes its own parser,
+	 * so it doesn't share any state of the compiler with other tasks. The number of tasks
+	 * is bounded by the `parserThreads` option, the processor doesn't start threads of its own.
+	 * Results are copied to the name table of the compilation in the order of codes.
+	 */
+	private List<JCTree.JCExpression> parseInParallel(List<String> codes, Map<String, String> errors) {
 
-		private final String text;
+		int tasks = Math.min(threads, codes.size() / MIN_EXPRESSIONS_PER_THREAD);
+		int chunk = (codes.size() + tasks - 1) / tasks;
+		List<ForkJoinTask<ParsedChunk>> chunks = new ArrayList<>(tasks);
+		for (int from = 0; from < codes.size(); from += chunk) {
+			List<String> part = codes.subList(from, Math.min(from + chunk, codes.size()));
+			chunks.add(ForkJoinPool.commonPool().submit(() -> {
+				Map<String, String> partErrors = new LinkedHashMap<>();
+				List<JCTree.JCExpression> expressions = CodeParser.isolated(options, wrapping).parseCodes(part, partErrors);
+				return new ParsedChunk(expressions, partErrors);
+			}));
+		}
 
-		public FakeJavaFileWrapper(String text) {
-			super(URI.create("myfake:/Test.java"), JavaFileObject.Kind.SOURCE);
-			if (callToStringExplicitlyInInterpolations) {
-				this.text = "class Test { Object value = java.util.Objects.nonNull(" + text + ") ? java.util.Objects.requireNonNull(" + text + ").toString() : \"null\"; }";
-			} else {
-				this.text = "class Test { Object value = String.valueOf(" + text + "); }";
+		List<JCTree.JCExpression> expressions = new ArrayList<>(codes.size());
+		for (ForkJoinTask<ParsedChunk> task : chunks) {
+			ParsedChunk parsed;
+			try {
+				parsed = task.join();
+			} catch (RuntimeException | LinkageError e) {
+				// the parser can't be made out of the compiler (e.g. by an unknown version of javac)
+				chunks.forEach(t -> t.cancel(false));
+				errors.clear();
+				return parser.parseCodes(codes, errors);
+			}
+			for (JCTree.JCExpression expression : parsed.expressions) {
+				expressions.add(expression == null ? null : copy(expression, names));
+			}
+			errors.putAll(parsed.errors);
+		}
+		return expressions;
+	}
+
+	/**
+	 * Positions of the parsed code become relative to its start, the code
+	 * before it, added by the wrapping, gets the negative position.
+	 */
+	private void toRelativePositions(JCTree.JCExpression expression) {
+		int start = TreeInfo.getStartPos(wrapping.unwrap(expression));
+		new PositionResolver(tree -> tree.pos < start ? -1 : tree.pos - start).scan(expression);
+	}
+
+	/**
+	 * Deep copy of the expression with names from the given table,
+	 * the table of the cache is shared by threads, so names are added under its lock.
+	 */
+	private JCTree.JCExpression copy(JCTree.JCExpression expression, Names target) {
+		JCTree.JCExpression copy = treeCopier.copy(expression);
+		synchronized (target) {
+			copy.accept(new NameResolver(target));
+		}
+		return copy;
+	}
+
+
+	/**
+	 * The parser of codes, it isn't thread-safe.
+	 */
+	private static class CodeParser {
+
+		private final ParserFactory parserFactory;
+		private final Log log;
+		private final ExpressionWrapping wrapping;
+
+		CodeParser(Context context, ExpressionWrapping wrapping) {
+			this.parserFactory = ParserFactory.instance(context);
+			this.log = Log.instance(context);
+			this.wrapping = wrapping;
+		}
+
+		/**
+		 * @return the parser with its own context and name table,
+		 * it parses codes as the compilation with the given options
+		 */
+		static CodeParser isolated(Options compilationOptions, ExpressionWrapping wrapping) {
+			Context context = new Context();
+			JavacFileManager.preRegister(context);
+			Options options = Options.instance(context);
+			for (String option : compilationOptions.keySet()) {
+				options.put(option, compilationOptions.get(option));
+			}
+			options.put("useUnsharedTable", "true");
+			return new CodeParser(context, wrapping);
+		}
+
+		List<JCTree.JCExpression> parseCodes(List<String> codes, Map<String, String> errors) {
+
+			List<JCTree.JCExpression> expressions = codes.size() > 1 ? parseBatch(codes) : null;
+			if (expressions != null) {
+				return expressions;
+			}
+			expressions = new ArrayList<>(codes.size());
+			for (String code : codes) {
+				expressions.add(parseExpression(code, errors));
+			}
+			return expressions;
+		}
+
+		private List<JCTree.JCExpression> parseBatch(List<String> codes) {
+
+			StringBuilder source = new StringBuilder("class BetterStrings {");
+			for (int i = 0; i < codes.size(); i++) {
+				source.append(" Object e").append(i).append(" = ").append(wrapping.wrap(codes.get(i))).append(';');
+			}
+			source.append(" }");
+
+			Log.DeferredDiagnosticHandler diagnostics = new Log.DeferredDiagnosticHandler(log);
+			JCTree.JCCompilationUnit unit;
+			try {
+				unit = parserFactory.newParser(source, false, false, false).parseCompilationUnit();
+			} finally {
+				log.popDiagnosticHandler(diagnostics);
+			}
+			if (!diagnostics.getDiagnostics().isEmpty() || unit.defs.size() != 1) {
+				return null;
+			}
+
+			List<JCTree> members = ((JCTree.JCClassDecl) unit.defs.head).defs;
+			if (members.size() != codes.size()) {
+				return null;
+			}
+			List<JCTree.JCExpression> expressions = new ArrayList<>(members.size());
+			for (JCTree member : members) {
+				if (!(member instanceof JCTree.JCVariableDecl)) {
+					return null;
+				}
+				expressions.add(((JCTree.JCVariableDecl) member).init);
+			}
+			return expressions;
+		}
+
+		/**
+		 * @return parsed expression or {@code null} if the code is malformed,
+		 * in this case the error message is added to {@code errors}
+		 */
+		private JCTree.JCExpression parseExpression(String code, Map<String, String> errors) {
+
+			// collect errors of the parser instead of reporting them
+			// against the source file which is compiling now
+			Log.DeferredDiagnosticHandler diagnostics = new Log.DeferredDiagnosticHandler(log);
+			try {
+				JavacParser parser = parserFactory.newParser(wrapping.wrap(code), false, false, false);
+				JCTree.JCExpression expression = parser.parseExpression();
+				if (diagnostics.getDiagnostics().isEmpty() && parser.token().kind == Tokens.TokenKind.EOF) {
+					return expression;
+				}
+			} finally {
+				log.popDiagnosticHandler(diagnostics);
 			}
+			JCDiagnostic diagnostic = diagnostics.getDiagnostics().peek();
+			errors.put(code, "Error while parsing expression in the string literal: " + code +
+			                 (diagnostic == null ? "" : ", " + diagnostic.getMessage(Locale.getDefault())));
+			return null;
+		}
+	}
+
+
+	private static class ParsedChunk {
+
+		private final List<JCTree.JCExpression> expressions;
+		private final Map<String, String> errors;
+
+		ParsedChunk(List<JCTree.JCExpression> expressions, Map<String, String> errors) {
+			this.expressions = expressions;
+			this.errors = errors;
+		}
+	}
+
+
+	private static class PositionResolver extends TreeScanner {
+
+		private final ToIntFunction<JCTree> position;
+
+		PositionResolver(ToIntFunction<JCTree> position) {
+			this.position = position;
 		}
 
 		@Override
-		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-			return text;
+		public void scan(JCTree tree) {
+			if (tree != null) {
+				tree.pos = position.applyAsInt(tree);
+			}
+			super.scan(tree);
 		}
 	}
 
 
-	private class IdentResolver extends TreeTranslator {
+	/**
+	 * Moves all names of a tree to the name table of another compilation.
+	 */
+	private static class NameResolver extends TreeScanner {
+
+		private final Names names;
 
-		private final int offset;
+		NameResolver(Names names) {
+			this.names = names;
+		}
+
+		private Name resolve(Name name) {
+			if (name == null || name.table == names.table) {
+				return name;
+			}
+			return names.fromString(name.toString());
+		}
+
+		@Override
+		public void visitIdent(JCTree.JCIdent tree) {
+			tree.name = resolve(tree.name);
+		}
+
+		@Override
+		public void visitSelect(JCTree.JCFieldAccess tree) {
+			super.visitSelect(tree);
+			tree.name = resolve(tree.name);
+		}
 
-		public IdentResolver(int offset) {
-			this.offset = offset;
+		@Override
+		public void visitReference(JCTree.JCMemberReference tree) {
+			super.visitReference(tree);
+			tree.name = resolve(tree.name);
+		}
+
+		@Override
+		public void visitVarDef(JCTree.JCVariableDecl tree) {
+			super.visitVarDef(tree);
+			tree.name = resolve(tree.name);
+		}
+
+		@Override
+		public void visitMethodDef(JCTree.JCMethodDecl tree) {
+			super.visitMethodDef(tree);
+			tree.name = resolve(tree.name);
+		}
+
+		@Override
+		public void visitClassDef(JCTree.JCClassDecl tree) {
+			super.visitClassDef(tree);
+			tree.name = resolve(tree.name);
+		}
+
+		@Override
+		public void visitTypeParameter(JCTree.JCTypeParameter tree) {
+			super.visitTypeParameter(tree);
+			tree.name = resolve(tree.name);
 		}
 
 		@Override
-		public void visitApply(JCTree.JCMethodInvocation jcMethodInvocation) {
-			super.visitApply(jcMethodInvocation);
-			jcMethodInvocation.pos = offset;
+		public void visitLabelled(JCTree.JCLabeledStatement tree) {
+			super.visitLabelled(tree);
+			tree.label = resolve(tree.label);
 		}
 
 		@Override
-		public void visitIdent(JCTree.JCIdent jcIdent) {
-			super.visitIdent(jcIdent);
-			jcIdent.name = names.fromString(jcIdent.getName().toString());
-			jcIdent.pos = offset;
+		public void visitBreak(JCTree.JCBreak tree) {
+			super.visitBreak(tree);
+			tree.label = resolve(tree.label);
 		}
 
 		@Override
-		public void visitSelect(JCTree.JCFieldAccess jcFieldAccess) {
-			super.visitSelect(jcFieldAccess);
-			jcFieldAccess.name = names.fromString(jcFieldAccess.name.toString());
-			jcFieldAccess.pos = offset;
+		public void visitContinue(JCTree.JCContinue tree) {
+			super.visitContinue(tree);
+			tree.label = resolve(tree.label);
 		}
 	}
 }
@@ -0,0 +1,72 @@
+package com.antkorwin.betterstrings.ast;
+
+import com.antkorwin.betterstrings.ConcatStrategy;
+import com.antkorwin.betterstrings.Configuration;
+import com.sun.tools.javac.tree.JCTree;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The code around an expression from a string literal,
+ * which turns the value of the expression into a part of the string.
+ */
+enum ExpressionWrapping {
+
+	VALUE_OF {
+		@Override
+		String wrap(String code) {
+			return "String.valueOf(" + code + ")";
+		}
+
+		@Override
+		JCTree.JCExpression unwrap(JCTree.JCExpression wrapped) {
+			return ((JCTree.JCMethodInvocation) wrapped).args.head;
+		}
+	},
+
+	/**
+	 * The expression is evaluated once, it's the argument of `Objects.toString`,
+	 * which calls `toString()` of a value that isn't null.
+	 */
+	TO_STRING {
+		@Override
+		String wrap(String code) {
+			return "java.util.Objects.toString(" + code + ")";
+		}
+
+		@Override
+		JCTree.JCExpression unwrap(JCTree.JCExpression wrapped) {
+			return ((JCTree.JCMethodInvocation) wrapped).args.head;
+		}
+	},
+
+	NONE {
+		@Override
+		String wrap(String code) {
+			return code;
+		}
+
+		@Override
+		JCTree.JCExpression unwrap(JCTree.JCExpression wrapped) {
+			return wrapped;
+		}
+	};
+
+	abstract String wrap(String code);
+
+	/**
+	 * @return the tree of the expression itself from the parsed result of {@link #wrap(String)}
+	 */
+	abstract JCTree.JCExpression unwrap(JCTree.JCExpression wrapped);
+
+	/**
+	 * Values of the `indy` strategy are wrapped too, the lowering unwraps them by types,
+	 * but a `char[]` keeps `String.valueOf` to be printed as a text by any strategy.
+	 */
+	static ExpressionWrapping of(Configuration configuration) {
+		if (configuration.isCallToStringExplicitlyInInterpolations()) {
+			return TO_STRING;
+		}
+		return configuration.getConcatStrategy() == ConcatStrategy.STRING_BUILDER ? NONE : VALUE_OF;
+	}
+}
@@ -1,15 +1,42 @@
 package com.antkorwin.betterstrings.ast;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
+import javax.tools.Diagnostic;
 
+import com.antkorwin.betterstrings.Appenders;
+import com.antkorwin.betterstrings.BetterStrings;
+import com.antkorwin.betterstrings.ConcatStrategy;
+import com.antkorwin.betterstrings.Configuration;
 import com.antkorwin.betterstrings.DisabledStringInterpolation;
+import com.antkorwin.betterstrings.FastToString;
+import com.antkorwin.betterstrings.Formats;
+import com.antkorwin.betterstrings.InterpolationProfiler;
+import com.antkorwin.betterstrings.LazyString;
+import com.antkorwin.betterstrings.ProcessingMetrics;
+import com.antkorwin.betterstrings.Utf8Builder;
+import com.antkorwin.betterstrings.tokenizer.FormatSpec;
 import com.antkorwin.betterstrings.tokenizer.Token;
+import com.antkorwin.betterstrings.tokenizer.TokenType;
 import com.antkorwin.betterstrings.tokenizer.Tokenizer;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.jvm.Target;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.TreeMaker;
 import com.sun.tools.javac.tree.TreeTranslator;
 import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.ListBuffer;
 import com.sun.tools.javac.util.Names;
 
 /**
@@ -22,28 +49,192 @@ import com.sun.tools.javac.util.Names;
  */
 public class InnerStringVarsAstTranslator extends TreeTranslator {
 
+	/**
+	 * Expected length of a value of an expression in the
+	 * capacity of the builder, types are unknown at this phase.
+	 */
+	static final int EXPRESSION_LENGTH_ESTIMATE = 16;
+
+	private static final String BETTER_STRINGS = BetterStrings.class.getCanonicalName();
+	private static final String LAZY_STRING = LazyString.class.getCanonicalName();
+	private static final String LAZY = "lazy";
+	private static final String APPEND_TO = "appendTo";
+	private static final String APPENDERS = Appenders.class.getCanonicalName();
+	private static final String UTF8 = "utf8";
+	private static final String WRITE_UTF8 = "writeUtf8";
+	private static final String UTF8_BUILDER = Utf8Builder.class.getCanonicalName();
+	private static final String PROFILER = InterpolationProfiler.class.getCanonicalName();
+	private static final String FORMATS = Formats.class.getCanonicalName();
+	private static final int JAVA_9_MAJOR_VERSION = 53;
+
 	private final TreeMaker treeMaker;
+	private final Names names;
 	private final Tokenizer tokenizer;
 	private final ExpressionParser expressionParser;
+	private final ExpressionParser rawExpressionParser;
+	private final Trees trees;
+	private final ConcatStrategy toStringStrategy;
+	private final ToStringDeclaration toStringDeclaration;
+	private final TypeAwareLowering lowering;
+	private final LoggerGuard loggerGuard;
+	private final ProcessingMetrics metrics;
+	private final boolean profile;
+
+	private final List<Token> expressions = new ArrayList<>();
+	private final List<JCTree.JCParens> expressionSlots = new ArrayList<>();
+	private final List<Token> rawExpressions = new ArrayList<>();
+	private final List<JCTree.JCParens> rawExpressionSlots = new ArrayList<>();
 
+	private ConcatStrategy concatStrategy;
 	private boolean skip;
+	private JCTree.JCClassDecl topLevelClass;
+	private JCTree.JCCompilationUnit compilationUnit;
 
-	public InnerStringVarsAstTranslator(Context context, boolean callToStringExplicitlyInInterpolations) {
+	public InnerStringVarsAstTranslator(Context context,
+	                                    Configuration configuration,
+	                                    TypeAwareLowering lowering,
+	                                    ProcessingMetrics metrics) {
 		this.treeMaker = TreeMaker.instance(context);
+		this.names = Names.instance(context);
 		this.tokenizer = new Tokenizer();
-		this.expressionParser = new ExpressionParser(Names.instance(context), callToStringExplicitlyInInterpolations);
+		this.expressionParser = new ExpressionParser(context, configuration);
+		this.rawExpressionParser = new ExpressionParser(context, ExpressionWrapping.NONE, configuration.getParserThreads());
+		this.trees = JavacTrees.instance(context);
+		this.concatStrategy = configuration.getConcatStrategy();
+		this.toStringStrategy = Target.instance(context).majorVersion >= JAVA_9_MAJOR_VERSION
+		                        ? ConcatStrategy.INDY
+		                        : ConcatStrategy.STRING_BUILDER;
+		this.toStringDeclaration = new ToStringDeclaration(context);
+		this.lowering = lowering;
+		this.loggerGuard = configuration.isGuardLoggerCalls() ? new LoggerGuard(context) : null;
+		this.metrics = metrics;
+		this.profile = configuration.isProfileInterpolations();
 	}
 
-	@Override
-	public <T extends JCTree> T translate(T t) {
-		return super.translate(t);
+	/**
+	 * Translate string literals of the compilation unit, expressions
+	 * from all literals are parsed together after the translation.
+	 *
+	 * @param compilationUnit tree of a source file
+	 */
+	public void translate(JCTree.JCCompilationUnit compilationUnit) {
+
+		long start = System.nanoTime();
+		this.compilationUnit = compilationUnit;
+		translate((JCTree) compilationUnit);
+		this.compilationUnit = null;
+		parseExpressions(compilationUnit, expressionParser, expressions, expressionSlots);
+		parseExpressions(compilationUnit, rawExpressionParser, rawExpressions, rawExpressionSlots);
+		metrics.addTranslationNanos(compilationUnit.getSourceFile().getName(), System.nanoTime() - start);
+	}
+
+	private void parseExpressions(JCTree.JCCompilationUnit compilationUnit,
+	                              ExpressionParser parser,
+	                              List<Token> expressions,
+	                              List<JCTree.JCParens> expressionSlots) {
+		if (expressions.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		int cacheHits = parser.getCacheHits();
+		List<JCTree.JCExpression> parsed =
+				parser.parse(expressions, (token, message) -> {
+					int index = expressions.indexOf(token);
+					trees.printMessage(Diagnostic.Kind.ERROR, message, expressionSlots.get(index), compilationUnit);
+				});
+		metrics.addParserNanos(System.nanoTime() - start);
+		metrics.addExpressionsParsed(expressions.size(), parser.getCacheHits() - cacheHits);
+
+		for (int i = 0; i < parsed.size(); i++) {
+			JCTree.JCExpression expression = parsed.get(i);
+			expressionSlots.get(i).expr = expression != null
+			                              ? expression
+			                              : treeMaker.Literal(expressions.get(i).getValue());
+		}
+		expressions.clear();
+		expressionSlots.clear();
 	}
 
 	@Override
 	public void visitClassDef(JCTree.JCClassDecl jcClassDecl) {
 
+		boolean topLevel = topLevelClass == null;
+		if (topLevel) {
+			topLevelClass = jcClassDecl;
+		}
 		doWithSkipResolving(() -> skip || isAnnotatedBySkip(jcClassDecl.getModifiers()),
 		                    () -> super.visitClassDef(jcClassDecl));
+		if (!skip && !isAnnotatedBySkip(jcClassDecl.getModifiers()) && compilationUnit != null) {
+			implementToString(jcClassDecl);
+		}
+		if (topLevel) {
+			topLevelClass = null;
+		}
+	}
+
+	/**
+	 * The result of `toString()` of the class annotated by {@link FastToString} is the interpolation
+	 * of its template, concatenated by `invokedynamic` or by the builder which is presized by types
+	 * of values. The method is declared here, unless the plugin has declared it before.
+	 */
+	private void implementToString(JCTree.JCClassDecl jcClassDecl) {
+
+		JCTree.JCAnnotation annotation = ToStringDeclaration.annotation(jcClassDecl, compilationUnit);
+		if (annotation == null) {
+			return;
+		}
+		JCTree.JCMethodDecl method = toStringDeclaration.declare(jcClassDecl, annotation, compilationUnit);
+		JCTree.JCLiteral template = toStringDeclaration.template(jcClassDecl, annotation, compilationUnit);
+		if (method == null || template == null) {
+			return;
+		}
+		List<Token> tokens = toStringDeclaration.tokens(jcClassDecl, annotation, template);
+		metrics.literalVisited();
+		metrics.literalRewritten();
+		JCTree.JCExpression value;
+		if (!hasExpressions(tokens)) {
+			value = tokens.isEmpty() ? treeMaker.at(template.pos).Literal(template.getValue())
+			                         : convertToText(tokens, template);
+		} else {
+			ConcatStrategy strategy = concatStrategy;
+			concatStrategy = toStringStrategy;
+			value = interpolation(tokens, template, annotation);
+			concatStrategy = strategy;
+		}
+		((JCTree.JCReturn) method.body.stats.head).expr = value;
+	}
+
+	@Override
+	public void visitBlock(JCTree.JCBlock jcBlock) {
+
+		if (loggerGuard == null || skip || topLevelClass == null) {
+			super.visitBlock(jcBlock);
+			return;
+		}
+		Set<JCTree.JCStatement> loggerCalls = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (JCTree.JCStatement statement : jcBlock.stats) {
+			if (LoggerGuard.isInterpolatedLoggerCall(statement, tokenizer)) {
+				loggerCalls.add(statement);
+			}
+		}
+		super.visitBlock(jcBlock);
+		if (loggerCalls.isEmpty()) {
+			return;
+		}
+
+		ListBuffer<JCTree.JCStatement> statements = new ListBuffer<>();
+		for (JCTree.JCStatement statement : jcBlock.stats) {
+			if (!loggerCalls.contains(statement)) {
+				statements.append(statement);
+				continue;
+			}
+			JCTree.JCIf guard = treeMaker.at(statement.pos)
+			                             .If(treeMaker.Parens(loggerGuard.placeholder()), statement, null);
+			lowering.registerGuard(topLevelClass, guard);
+			statements.append(guard);
+		}
+		jcBlock.stats = statements.toList();
 	}
 
 	@Override
@@ -88,6 +279,223 @@ public class InnerStringVarsAstTranslator extends TreeTranslator {
 	}
 
 
+	@Override
+	public void visitApply(JCTree.JCMethodInvocation jcMethodInvocation) {
+
+		if (skip) {
+			super.visitApply(jcMethodInvocation);
+		} else if (isMarker(jcMethodInvocation, LAZY, 1)) {
+			translateLazy(jcMethodInvocation);
+		} else if (isMarker(jcMethodInvocation, APPEND_TO, 2)) {
+			translateAppendTo(jcMethodInvocation);
+		} else if (isMarker(jcMethodInvocation, UTF8, 1)) {
+			translateUtf8(jcMethodInvocation);
+		} else if (isMarker(jcMethodInvocation, WRITE_UTF8, 2)) {
+			translateWriteUtf8(jcMethodInvocation);
+		} else {
+			super.visitApply(jcMethodInvocation);
+		}
+	}
+
+	/**
+	 * `BetterStrings.lazy("...${x}...")` becomes `new LazyString(new Object[]{"...", x, "..."})`,
+	 * raw values of expressions are captured and the string is concatenated when it's read.
+	 */
+	private void translateLazy(JCTree.JCMethodInvocation jcMethodInvocation) {
+
+		JCTree.JCLiteral jcLiteral = (JCTree.JCLiteral) jcMethodInvocation.args.head;
+		List<Token> tokens = split(jcLiteral);
+		if (!hasExpressions(tokens)) {
+			super.visitApply(jcMethodInvocation);
+			return;
+		}
+
+		ListBuffer<JCTree.JCExpression> parts = new ListBuffer<>();
+		for (Token token : tokens) {
+			if (token.getType() != TokenType.EXPRESSION) {
+				parts.append(convertToExpression(token));
+				continue;
+			}
+			JCTree.JCParens slot = slot(token, rawExpressions, rawExpressionSlots);
+			if (token.getFormat() != null) {
+				trees.printMessage(Diagnostic.Kind.ERROR,
+				                   "Format specifiers aren't supported in lazy strings, " +
+				                   "the formatting isn't deferred",
+				                   slot,
+				                   compilationUnit);
+			}
+			parts.append(slot);
+		}
+		treeMaker.at(jcMethodInvocation.pos);
+		JCTree.JCExpression array = treeMaker.NewArray(qualifiedName(treeMaker, names, "java.lang.Object"),
+		                                               com.sun.tools.javac.util.List.nil(),
+		                                               parts.toList());
+		metrics.literalVisited();
+		metrics.literalRewritten();
+		result = treeMaker.NewClass(null,
+		                            com.sun.tools.javac.util.List.nil(),
+		                            qualifiedName(treeMaker, names, LAZY_STRING),
+		                            com.sun.tools.javac.util.List.of(array),
+		                            null);
+	}
+
+	/**
+	 * `BetterStrings.appendTo(out, "id=${id};")` becomes the chain of calls of {@link Appenders}:
+	 * `Appenders.to(out).append("id=").append(id).append(";").target()`, the compiler chooses
+	 * the overload by the type of each raw value and the target is evaluated once.
+	 * <p>
+	 * The call of `to` is placed at the replaced call, calls of `append` at the first character
+	 * of a text and at `}` of an expression, which aren't positions of other generated code.
+	 */
+	private void translateAppendTo(JCTree.JCMethodInvocation jcMethodInvocation) {
+
+		JCTree.JCLiteral jcLiteral = (JCTree.JCLiteral) jcMethodInvocation.args.last();
+		List<Token> tokens = split(jcLiteral);
+		if (!hasExpressions(tokens)) {
+			super.visitApply(jcMethodInvocation);
+			return;
+		}
+
+		treeMaker.at(jcMethodInvocation.pos);
+		JCTree.JCExpression appender = call(jcMethodInvocation.pos,
+		                                    qualifiedName(treeMaker, names, APPENDERS),
+		                                    "to",
+		                                    translate(jcMethodInvocation.args.head));
+		result = chain(appender, tokens, jcLiteral, false, "target");
+	}
+
+	/**
+	 * `BetterStrings.utf8("id=${id};")` becomes the chain of calls of {@link Utf8Builder}:
+	 * `Utf8Builder.of(21).encoded("id=").append(id).encoded(";").toBytes()`, texts are encoded
+	 * into UTF-8 by the processor and the array is presized by their lengths.
+	 */
+	private void translateUtf8(JCTree.JCMethodInvocation jcMethodInvocation) {
+
+		JCTree.JCLiteral jcLiteral = (JCTree.JCLiteral) jcMethodInvocation.args.last();
+		List<Token> tokens = split(jcLiteral);
+		if (!hasExpressions(tokens)) {
+			super.visitApply(jcMethodInvocation);
+			return;
+		}
+
+		int capacity = 0;
+		for (Token token : tokens) {
+			capacity += token.getType() == TokenType.EXPRESSION
+			            ? EXPRESSION_LENGTH_ESTIMATE
+			            : token.getValue().getBytes(StandardCharsets.UTF_8).length;
+		}
+		treeMaker.at(jcMethodInvocation.pos);
+		JCTree.JCExpression builder = call(jcMethodInvocation.pos,
+		                                   qualifiedName(treeMaker, names, UTF8_BUILDER),
+		                                   "of",
+		                                   treeMaker.Literal(capacity));
+		result = chain(builder, tokens, jcLiteral, true, "toBytes");
+	}
+
+	/**
+	 * `BetterStrings.writeUtf8(buffer, "id=${id};")` becomes
+	 * `Utf8Builder.to(buffer).encoded("id=").append(id).encoded(";").target()`,
+	 * bytes are written from the position of the buffer, which is evaluated once.
+	 */
+	private void translateWriteUtf8(JCTree.JCMethodInvocation jcMethodInvocation) {
+
+		JCTree.JCLiteral jcLiteral = (JCTree.JCLiteral) jcMethodInvocation.args.last();
+		List<Token> tokens = split(jcLiteral);
+		if (!hasExpressions(tokens)) {
+			super.visitApply(jcMethodInvocation);
+			return;
+		}
+
+		treeMaker.at(jcMethodInvocation.pos);
+		JCTree.JCExpression builder = call(jcMethodInvocation.pos,
+		                                   qualifiedName(treeMaker, names, UTF8_BUILDER),
+		                                   "to",
+		                                   translate(jcMethodInvocation.args.head));
+		result = chain(builder, tokens, jcLiteral, true, "target");
+	}
+
+	/**
+	 * Chains calls of `append` for texts and raw values of expressions on the receiver,
+	 * encoded texts are passed to `encoded` as strings of their UTF-8 bytes.
+	 * <p>
+	 * Calls are placed at the first character of a text and at `}` of an expression,
+	 * the last call is after the literal, these aren't positions of other generated code.
+	 */
+	private JCTree.JCExpression chain(JCTree.JCExpression receiver,
+	                                  List<Token> tokens,
+	                                  JCTree.JCLiteral jcLiteral,
+	                                  boolean encoded,
+	                                  String last) {
+		for (Token token : tokens) {
+			if (token.getType() == TokenType.EXPRESSION) {
+				JCTree.JCExpression value = token.getFormat() != null
+				                            ? formatted(token)
+				                            : slot(token, rawExpressions, rawExpressionSlots);
+				int end = token.getOffset() + token.getLength() +
+				          (token.getFormat() != null ? Tokenizer.FORMAT.length() + token.getFormat().length() : 0);
+				receiver = call(end, receiver, "append", value);
+			} else if (encoded) {
+				byte[] bytes = token.getValue().getBytes(StandardCharsets.UTF_8);
+				JCTree.JCLiteral text = treeMaker.at(token.getOffset())
+				                                 .Literal(new String(bytes, StandardCharsets.ISO_8859_1));
+				receiver = call(token.getOffset(), receiver, "encoded", text);
+			} else {
+				receiver = call(token.getOffset(), receiver, "append", convertToExpression(token));
+			}
+		}
+		metrics.literalVisited();
+		metrics.literalRewritten();
+		return treeMaker.at(jcLiteral.pos + ((String) jcLiteral.getValue()).length() + 1)
+		                .Apply(com.sun.tools.javac.util.List.nil(),
+		                       treeMaker.Select(receiver, names.fromString(last)),
+		                       com.sun.tools.javac.util.List.nil());
+	}
+
+	private JCTree.JCExpression call(int pos, JCTree.JCExpression receiver, String method, JCTree.JCExpression argument) {
+		return treeMaker.at(pos)
+		                .Apply(com.sun.tools.javac.util.List.nil(),
+		                       treeMaker.Select(receiver, names.fromString(method)),
+		                       com.sun.tools.javac.util.List.of(argument));
+	}
+
+	/**
+	 * @return true for `BetterStrings.method(..., literal)` with the import of {@link BetterStrings},
+	 * the full name of the class or `method(..., literal)` with the static import of the method
+	 */
+	private boolean isMarker(JCTree.JCMethodInvocation jcMethodInvocation, String name, int arguments) {
+
+		if (jcMethodInvocation.args.size() != arguments ||
+		    !(jcMethodInvocation.args.last() instanceof JCTree.JCLiteral) ||
+		    !(((JCTree.JCLiteral) jcMethodInvocation.args.last()).getValue() instanceof String)) {
+			return false;
+		}
+		JCTree.JCExpression method = jcMethodInvocation.meth;
+		if (method instanceof JCTree.JCIdent) {
+			return ((JCTree.JCIdent) method).name.contentEquals(name) &&
+			       isImported(BETTER_STRINGS + "." + name, true);
+		}
+		if (!(method instanceof JCTree.JCFieldAccess) || !((JCTree.JCFieldAccess) method).name.contentEquals(name)) {
+			return false;
+		}
+		String owner = ((JCTree.JCFieldAccess) method).selected.toString();
+		return owner.equals(BETTER_STRINGS) ||
+		       owner.equals(BetterStrings.class.getSimpleName()) && isImported(BETTER_STRINGS, false);
+	}
+
+	private boolean isImported(String name, boolean staticImport) {
+		if (compilationUnit == null) {
+			return false;
+		}
+		String onDemand = name.substring(0, name.lastIndexOf('.')) + ".*";
+		for (ImportTree importTree : compilationUnit.getImports()) {
+			String imported = importTree.getQualifiedIdentifier().toString();
+			if (importTree.isStatic() == staticImport && (imported.equals(name) || imported.equals(onDemand))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void visitLiteral(JCTree.JCLiteral jcLiteral) {
 
@@ -97,32 +505,214 @@ public class InnerStringVarsAstTranslator extends TreeTranslator {
 		}
 		if (jcLiteral.getValue() instanceof String) {
 
-			List<Token> tokens = tokenizer.split(jcLiteral);
+			metrics.literalVisited();
+			List<Token> tokens = split(jcLiteral);
 
+			// literals without expressions stay as is
 			if (tokens.isEmpty()) {
 				return;
 			}
 
-			if (tokens.size() == 1) {
-				result = convertToExpression(tokens.get(0));
+			if (!hasExpressions(tokens)) {
+				// only escaped expressions in the literal
+				metrics.literalRewritten();
+				result = convertToText(tokens, jcLiteral);
 				return;
 			}
 
-			JCTree.JCExpression exprLeft = convertToExpression(tokens.get(0));
-			for (int i = 1; i < tokens.size(); i++) {
-				JCTree.JCExpression exprRight = convertToExpression(tokens.get(i));
-				exprLeft = treeMaker.Binary(JCTree.Tag.PLUS, exprLeft, exprRight);
-				exprLeft.setPos(tokens.get(0).getOffset());
+			metrics.literalRewritten();
+			result = interpolation(tokens, jcLiteral, null);
+		}
+	}
+
+	/**
+	 * @param annotation {@link FastToString} of a default template, which isn't in the source,
+	 *                   the generated code takes positions of the annotation then
+	 */
+	private JCTree.JCExpression interpolation(List<Token> tokens,
+	                                          JCTree.JCLiteral jcLiteral,
+	                                          JCTree.JCAnnotation annotation) {
+		JCTree.JCParens concatenation = treeMaker.at(jcLiteral.pos)
+		                                        .Parens(convertToConcatenation(tokens, jcLiteral, endPos(jcLiteral, annotation)));
+		if (topLevelClass != null) {
+			// the generated code is simplified when types are known
+			lowering.register(topLevelClass, concatenation);
+		}
+		return profile ? profiled(concatenation, jcLiteral, endPos(jcLiteral, annotation) + 1) : concatenation;
+	}
+
+	/**
+	 * @return the position right after the text of the literal, or after `@` of the annotation
+	 * of a default template, the rest of the generated code doesn't use these positions
+	 */
+	private int endPos(JCTree.JCLiteral jcLiteral, JCTree.JCAnnotation annotation) {
+		return annotation != null && jcLiteral.pos == annotation.pos
+		       ? annotation.pos + 1
+		       : jcLiteral.pos + ((String) jcLiteral.getValue()).length() + 1;
+	}
+
+	/**
+	 * `InterpolationProfiler.record(id, template, (concatenation))`, the call is placed
+	 * right after the text of the literal, the rest of the generated code doesn't use this position.
+	 */
+	private JCTree.JCExpression profiled(JCTree.JCParens concatenation, JCTree.JCLiteral jcLiteral, int pos) {
+		String template = (String) jcLiteral.getValue();
+		treeMaker.at(pos);
+		return treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+		                       treeMaker.Select(qualifiedName(treeMaker, names, PROFILER), names.fromString("record")),
+		                       com.sun.tools.javac.util.List.of(treeMaker.Literal(siteId(jcLiteral)),
+		                                                        treeMaker.Literal(template),
+		                                                        concatenation));
+	}
+
+	/**
+	 * @return the stable id of the literal: the path of the source file in its package,
+	 * the line and the column, e.g. `com/example/OrderService.java:42:17`
+	 */
+	private String siteId(JCTree.JCLiteral jcLiteral) {
+		// methods of the interface, the return type of getPackageName() is changed in JDK 9
+		CompilationUnitTree unit = compilationUnit;
+		String file = unit.getSourceFile().getName();
+		file = file.substring(Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1);
+		ExpressionTree packageName = unit.getPackageName();
+		if (packageName != null) {
+			file = packageName.toString().replace('.', '/') + "/" + file;
+		}
+		LineMap lineMap = unit.getLineMap();
+		return file + ":" + lineMap.getLineNumber(jcLiteral.pos) + ":" + lineMap.getColumnNumber(jcLiteral.pos);
+	}
+
+	private JCTree.JCExpression convertToConcatenation(List<Token> tokens, JCTree.JCLiteral jcLiteral, int callsPos) {
+
+		if (concatStrategy == ConcatStrategy.STRING_BUILDER) {
+			return convertToBuilder(tokens, jcLiteral, callsPos);
+		}
+
+		if (tokens.size() == 1 && !needsStringOperand(tokens)) {
+			return convertToExpression(tokens.get(0));
+		}
+
+		JCTree.JCExpression exprLeft = convertToExpression(tokens.get(0));
+		if (needsStringOperand(tokens)) {
+			exprLeft = treeMaker.Binary(JCTree.Tag.PLUS, treeMaker.Literal(""), exprLeft);
+			exprLeft.setPos(tokens.get(0).getOffset());
+		}
+		for (int i = 1; i < tokens.size(); i++) {
+			JCTree.JCExpression exprRight = convertToExpression(tokens.get(i));
+			exprLeft = treeMaker.Binary(JCTree.Tag.PLUS, exprLeft, exprRight);
+			exprLeft.setPos(tokens.get(0).getOffset());
+		}
+
+		return exprLeft;
+	}
+
+	/**
+	 * Raw values of expressions are not strings, so the concatenation starts from
+	 * the empty string when the literal doesn't start from a text or an expression
+	 * and a text (e.g. `${a}${b}` shouldn't become the sum of two numbers).
+	 */
+	private boolean needsStringOperand(List<Token> tokens) {
+		return concatStrategy == ConcatStrategy.INDY &&
+		       tokens.get(0).getType() == TokenType.EXPRESSION &&
+		       (tokens.size() == 1 || tokens.get(1).getType() == TokenType.EXPRESSION);
+	}
+
+	/**
+	 * @return tokens of the literal, or an empty list when there are no expressions in it
+	 */
+	private List<Token> split(JCTree.JCLiteral jcLiteral) {
+		long start = System.nanoTime();
+		List<Token> tokens = tokenizer.containsExpression((String) jcLiteral.getValue())
+		                     ? tokenizer.split(jcLiteral)
+		                     : Collections.emptyList();
+		metrics.addTokenizerNanos(System.nanoTime() - start);
+		return tokens;
+	}
+
+	private boolean hasExpressions(List<Token> tokens) {
+		for (Token token : tokens) {
+			if (token.getType() == TokenType.EXPRESSION) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private JCTree.JCLiteral convertToText(List<Token> tokens, JCTree.JCLiteral jcLiteral) {
+		StringBuilder text = new StringBuilder();
+		for (Token token : tokens) {
+			text.append((String) jcLiteral.getValue(), token.getStart(), token.getStart() + token.getLength());
+		}
+		JCTree.JCLiteral literal = treeMaker.Literal(text.toString());
+		literal.setPos(jcLiteral.pos);
+		return literal;
+	}
+
+	/**
+	 * `new StringBuilder(capacity).append(...)...toString()`, raw values of expressions
+	 * are passed to `append`, so javac selects the overload by the type of a value.
+	 * A single expression becomes `String.valueOf(...)`.
+	 * <p>
+	 * Calls are placed after the text of the literal, the position of the literal belongs
+	 * to the parentheses around the result, javac of JDK 9+ caches types of method arguments
+	 * by their positions, so the nested code shouldn't share it.
+	 */
+	private JCTree.JCExpression convertToBuilder(List<Token> tokens, JCTree.JCLiteral jcLiteral, int callsPos) {
+
+		treeMaker.at(callsPos);
+		if (tokens.size() == 1) {
+			return treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+			                       treeMaker.Select(treeMaker.Ident(names.fromString("String")),
+			                                        names.fromString("valueOf")),
+			                       com.sun.tools.javac.util.List.of(convertToExpression(tokens.get(0))));
+		}
+
+		int capacity = 0;
+		for (Token token : tokens) {
+			capacity += token.getType() == TokenType.EXPRESSION
+			            ? EXPRESSION_LENGTH_ESTIMATE
+			            : token.getLength();
+		}
+
+		JCTree.JCExpression builder = treeMaker.NewClass(null,
+		                                                 com.sun.tools.javac.util.List.nil(),
+		                                                 qualifiedName(treeMaker, names, "java.lang.StringBuilder"),
+		                                                 com.sun.tools.javac.util.List.of(treeMaker.Literal(capacity)),
+		                                                 null);
+		for (Token token : tokens) {
+			JCTree.JCExpression argument;
+			if (token.getType() == TokenType.STRING_LITERAL && token.getLength() == 1) {
+				// javac of JDK 8 expects the int value of a char literal
+				argument = treeMaker.Literal(TypeTag.CHAR, (int) ((String) jcLiteral.getValue()).charAt(token.getStart()));
+				argument.setPos(token.getOffset());
+			} else {
+				argument = convertToExpression(token);
 			}
+			treeMaker.at(callsPos);
+			builder = treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+			                          treeMaker.Select(builder, names.fromString("append")),
+			                          com.sun.tools.javac.util.List.of(argument));
+		}
+		return treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+		                       treeMaker.Select(builder, names.fromString("toString")),
+		                       com.sun.tools.javac.util.List.nil());
+	}
 
-			result = exprLeft;
+	static JCTree.JCExpression qualifiedName(TreeMaker treeMaker, Names names, String name) {
+		String[] parts = name.split("\\.");
+		JCTree.JCExpression result = treeMaker.Ident(names.fromString(parts[0]));
+		for (int i = 1; i < parts.length; i++) {
+			result = treeMaker.Select(result, names.fromString(parts[i]));
 		}
+		return result;
 	}
 
 	private JCTree.JCExpression convertToExpression(Token token) {
 		switch (token.getType()) {
 			case EXPRESSION:
-				return expressionParser.parse(token);
+				return token.getFormat() != null
+				       ? formatted(token)
+				       : slot(token, expressions, expressionSlots);
 			case STRING_LITERAL:
 				JCTree.JCLiteral literal = treeMaker.Literal(token.getValue());
 				literal.setPos(token.getOffset());
@@ -131,4 +721,50 @@ public class InnerStringVarsAstTranslator extends TreeTranslator {
 				throw new RuntimeException("Unexpected token type: " + token.getType());
 		}
 	}
+
+	/**
+	 * The expression with a format specifier, e.g. `${price:%.2f}`, is the call of {@link Formats}
+	 * with its value and the checked format: `Formats.fixed((price), 2, -1, 0)`.
+	 * The value isn't wrapped, the null is formatted as `null` by {@link Formats}.
+	 */
+	private JCTree.JCExpression formatted(Token token) {
+		FormatSpec format;
+		try {
+			format = FormatSpec.parse(token.getFormat());
+		} catch (IllegalArgumentException e) {
+			JCTree.JCParens slot = slot(token, expressions, expressionSlots);
+			trees.printMessage(Diagnostic.Kind.ERROR, e.getMessage(), slot, compilationUnit);
+			return slot;
+		}
+		ListBuffer<JCTree.JCExpression> arguments = new ListBuffer<>();
+		arguments.append(slot(token, rawExpressions, rawExpressionSlots));
+		treeMaker.at(token.getOffset() - 1);
+		if (format.hasPrecision()) {
+			arguments.append(treeMaker.Literal(format.getPrecision()));
+		}
+		arguments.append(treeMaker.Literal(format.getWidth()));
+		arguments.append(treeMaker.Literal(format.getFlags()));
+		JCTree.JCMethodInvocation call =
+				treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+				                treeMaker.Select(qualifiedName(treeMaker, names, FORMATS),
+				                                 names.fromString(format.getMethod())),
+				                arguments.toList());
+		if (topLevelClass != null) {
+			// the type of the value is checked when it's known
+			lowering.registerFormat(topLevelClass, call, format);
+		}
+		return call;
+	}
+
+	/**
+	 * The expression is parsed later, along with others of the compilation unit.
+	 */
+	private JCTree.JCParens slot(Token token, List<Token> expressions, List<JCTree.JCParens> expressionSlots) {
+		// the slot is over `$`, the code of the expression is over its text
+		JCTree.JCParens slot = treeMaker.Parens(null);
+		slot.setPos(token.getOffset() - 2);
+		expressions.add(token);
+		expressionSlots.add(slot);
+		return slot;
+	}
 }
@@ -0,0 +1,225 @@
+package com.antkorwin.betterstrings.ast;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+import com.antkorwin.betterstrings.tokenizer.Tokenizer;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symtab;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.model.JavacElements;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Names;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The check of the level around a logger call with an interpolated message,
+ * the message isn't built when the level is disabled:
+ * <pre>
+ * log.debug("user ${id}")  =>  if (log.isDebugEnabled()) log.debug("user " + id)
+ * log.fine("user ${id}")   =>  if (log.isLoggable(Level.FINE)) log.fine("user " + id)
+ * </pre>
+ * Calls are found by the shape of the code before the attribution
+ * and the condition is resolved by the type of the receiver after it,
+ * the condition is `true` if the receiver has no suitable method.
+ */
+class LoggerGuard {
+
+	/**
+	 * Levels of SLF4J, Log4j2 and commons-logging with `isXxxEnabled()` methods
+	 * and levels of java.util.logging with constants of `Level`.
+	 */
+	private static final Map<String, String> LEVELS = new HashMap<>();
+
+	static {
+		LEVELS.put("trace", null);
+		LEVELS.put("debug", null);
+		LEVELS.put("info", "INFO");
+		LEVELS.put("warn", null);
+		LEVELS.put("error", null);
+		LEVELS.put("fatal", null);
+		LEVELS.put("finest", "FINEST");
+		LEVELS.put("finer", "FINER");
+		LEVELS.put("fine", "FINE");
+		LEVELS.put("config", "CONFIG");
+		LEVELS.put("warning", "WARNING");
+		LEVELS.put("severe", "SEVERE");
+	}
+
+	private static final String JUL_LEVEL = "java.util.logging.Level";
+
+	private final TreeMaker treeMaker;
+	private final Symtab symtab;
+	private final Types types;
+	private final Names names;
+	private final JavacElements elements;
+
+	LoggerGuard(Context context) {
+		this.treeMaker = TreeMaker.instance(context);
+		this.symtab = Symtab.instance(context);
+		this.types = Types.instance(context);
+		this.names = Names.instance(context);
+		this.elements = JavacElements.instance(context);
+	}
+
+	/**
+	 * @return true if the statement looks like `receiver.level("...${...}...")`
+	 * where the receiver is a name of a variable or a field
+	 */
+	static boolean isInterpolatedLoggerCall(JCTree.JCStatement statement, Tokenizer tokenizer) {
+
+		if (!(statement instanceof JCTree.JCExpressionStatement) ||
+		    !(((JCTree.JCExpressionStatement) statement).expr instanceof JCTree.JCMethodInvocation)) {
+			return false;
+		}
+		JCTree.JCMethodInvocation call = (JCTree.JCMethodInvocation) ((JCTree.JCExpressionStatement) statement).expr;
+		if (!(call.meth instanceof JCTree.JCFieldAccess)) {
+			return false;
+		}
+		JCTree.JCFieldAccess method = (JCTree.JCFieldAccess) call.meth;
+		if (!LEVELS.containsKey(method.name.toString()) || !isName(method.selected)) {
+			return false;
+		}
+		InterpolationScanner scanner = new InterpolationScanner(tokenizer);
+		scanner.scan(call.args);
+		return scanner.found;
+	}
+
+	private static boolean isName(JCTree.JCExpression expression) {
+		if (expression instanceof JCTree.JCIdent) {
+			return true;
+		}
+		return expression instanceof JCTree.JCFieldAccess && isName(((JCTree.JCFieldAccess) expression).selected);
+	}
+
+	/**
+	 * The condition which is used before the attribution, it isn't a constant,
+	 * so the flow analysis treats the guarded call as conditional.
+	 */
+	JCTree.JCExpression placeholder() {
+		JCTree.JCExpression booleanTrue =
+				InnerStringVarsAstTranslator.qualifiedName(treeMaker, names, "java.lang.Boolean.TRUE");
+		return treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+		                       treeMaker.Select(booleanTrue, names.fromString("booleanValue")),
+		                       com.sun.tools.javac.util.List.nil());
+	}
+
+	/**
+	 * Replace the placeholder of the attributed guard by the check of the level.
+	 */
+	void resolve(JCTree.JCIf guard) {
+
+		JCTree.JCParens condition = (JCTree.JCParens) guard.cond;
+		JCTree.JCMethodInvocation call = (JCTree.JCMethodInvocation) ((JCTree.JCExpressionStatement) guard.thenpart).expr;
+		JCTree.JCFieldAccess method = (JCTree.JCFieldAccess) call.meth;
+
+		treeMaker.at(guard.pos);
+		JCTree.JCExpression check = levelCheck(method.selected, method.name.toString());
+		condition.expr = check != null ? check : treeMaker.Literal(true);
+		condition.type = condition.expr.type;
+	}
+
+	private JCTree.JCExpression levelCheck(JCTree.JCExpression receiver, String level) {
+
+		if (receiver.type == null || !receiver.type.hasTag(TypeTag.CLASS)) {
+			return null;
+		}
+		TypeElement receiverType = (TypeElement) receiver.type.tsym;
+		String enabled = "is" + Character.toUpperCase(level.charAt(0)) + level.substring(1) + "Enabled";
+		Symbol.MethodSymbol isEnabled = findMethod(receiverType, enabled, null);
+		if (isEnabled != null) {
+			JCTree.JCExpression copy = copyOfReceiver(receiver);
+			return copy == null ? null : treeMaker.App(treeMaker.Select(copy, isEnabled));
+		}
+
+		String julLevel = LEVELS.get(level);
+		TypeElement levelType = elements.getTypeElement(JUL_LEVEL);
+		if (julLevel == null || levelType == null) {
+			return null;
+		}
+		Symbol.MethodSymbol isLoggable = findMethod(receiverType, "isLoggable", (Symbol.ClassSymbol) levelType);
+		Symbol levelConstant = findField(levelType, julLevel);
+		JCTree.JCExpression copy = copyOfReceiver(receiver);
+		if (isLoggable == null || levelConstant == null || copy == null) {
+			return null;
+		}
+		return treeMaker.App(treeMaker.Select(copy, isLoggable),
+		                     com.sun.tools.javac.util.List.of(treeMaker.QualIdent(levelConstant)));
+	}
+
+	/**
+	 * @return public method which returns `boolean`, without parameters
+	 * or with the one parameter of the given type
+	 */
+	private Symbol.MethodSymbol findMethod(TypeElement type, String name, Symbol.ClassSymbol parameter) {
+		for (Element element : elements.getAllMembers(type)) {
+			if (element.getKind() != ElementKind.METHOD ||
+			    !element.getSimpleName().contentEquals(name) ||
+			    !element.getModifiers().contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			Symbol.MethodSymbol method = (Symbol.MethodSymbol) element;
+			if (!types.isSameType(method.getReturnType(), symtab.booleanType)) {
+				continue;
+			}
+			if (parameter == null ? method.getParameters().isEmpty()
+			                      : method.getParameters().size() == 1 &&
+			                        types.isSameType(method.getParameters().get(0).asType(), parameter.type)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private Symbol findField(TypeElement type, String name) {
+		for (Element element : type.getEnclosedElements()) {
+			if (element.getKind() == ElementKind.FIELD && element.getSimpleName().contentEquals(name)) {
+				return (Symbol) element;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Attributed copy of the name of the receiver.
+	 */
+	private JCTree.JCExpression copyOfReceiver(JCTree.JCExpression receiver) {
+		if (receiver instanceof JCTree.JCIdent) {
+			Symbol symbol = ((JCTree.JCIdent) receiver).sym;
+			return symbol == null ? null : treeMaker.Ident(symbol);
+		}
+		if (receiver instanceof JCTree.JCFieldAccess) {
+			JCTree.JCFieldAccess select = (JCTree.JCFieldAccess) receiver;
+			JCTree.JCExpression selected = copyOfReceiver(select.selected);
+			return selected == null || select.sym == null ? null : treeMaker.Select(selected, select.sym);
+		}
+		return null;
+	}
+
+
+	private static class InterpolationScanner extends TreeScanner {
+
+		private final Tokenizer tokenizer;
+		private boolean found;
+
+		InterpolationScanner(Tokenizer tokenizer) {
+			this.tokenizer = tokenizer;
+		}
+
+		@Override
+		public void visitLiteral(JCTree.JCLiteral tree) {
+			if (tree.getValue() instanceof String && tokenizer.containsExpression((String) tree.getValue())) {
+				found = true;
+			}
+		}
+	}
+}
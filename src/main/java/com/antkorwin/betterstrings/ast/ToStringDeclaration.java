@@ -0,0 +1,230 @@
+package com.antkorwin.betterstrings.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+
+import com.antkorwin.betterstrings.FastToString;
+import com.antkorwin.betterstrings.tokenizer.Token;
+import com.antkorwin.betterstrings.tokenizer.TokenType;
+import com.antkorwin.betterstrings.tokenizer.Tokenizer;
+import com.sun.source.tree.ImportTree;
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Names;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The `toString()` method of a class annotated by {@link FastToString}.
+ * <p>
+ * The method is declared as `public String toString() { return super.toString(); }`
+ * and its result is replaced by the interpolation of the template when the class
+ * is translated by {@link InnerStringVarsAstTranslator}, so the class which isn't
+ * translated behaves as the class without the method. The declaration has the position
+ * of the annotation, which tells it from a `toString()` written in the class.
+ * <p>
+ * Methods of classes which are already entered by the compiler are entered in the next round
+ * of processing, where all classes are entered again, and the plugin declares methods
+ * of member classes before they're entered.
+ */
+public class ToStringDeclaration {
+
+	private static final String FAST_TO_STRING = FastToString.class.getCanonicalName();
+	private static final String TO_STRING = "toString";
+
+	private final TreeMaker treeMaker;
+	private final Names names;
+	private final JavacTrees trees;
+	private final Tokenizer tokenizer = new Tokenizer();
+
+	public ToStringDeclaration(Context context) {
+		this.treeMaker = TreeMaker.instance(context);
+		this.names = Names.instance(context);
+		this.trees = JavacTrees.instance(context);
+	}
+
+	/**
+	 * Cheap check of a source file before the translation,
+	 * {@code false} means that the file has no {@link FastToString} classes for sure.
+	 */
+	public static boolean mayContainAnnotation(CharSequence source) {
+		String name = FastToString.class.getSimpleName();
+		int last = source.length() - name.length();
+		for (int i = 0; i <= last; i++) {
+			int j = 0;
+			while (j < name.length() && source.charAt(i + j) == name.charAt(j)) {
+				j++;
+			}
+			if (j == name.length()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Declares methods of annotated top-level and member classes of the unit
+	 * which isn't entered yet, local classes are entered later with their methods.
+	 */
+	public void declareAll(JCTree.JCCompilationUnit unit) {
+		for (JCTree typeDecl : unit.getTypeDecls()) {
+			if (typeDecl instanceof JCTree.JCClassDecl) {
+				declareAll((JCTree.JCClassDecl) typeDecl, unit);
+			}
+		}
+	}
+
+	private void declareAll(JCTree.JCClassDecl classDecl, JCTree.JCCompilationUnit unit) {
+		JCTree.JCAnnotation annotation = annotation(classDecl, unit);
+		if (annotation != null) {
+			declare(classDecl, annotation, unit);
+		}
+		for (JCTree member : classDecl.defs) {
+			if (member instanceof JCTree.JCClassDecl) {
+				declareAll((JCTree.JCClassDecl) member, unit);
+			}
+		}
+	}
+
+	/**
+	 * @return {@link FastToString} of the class by its name, so it's found before the attribution
+	 */
+	static JCTree.JCAnnotation annotation(JCTree.JCClassDecl classDecl, JCTree.JCCompilationUnit unit) {
+		for (JCTree.JCAnnotation annotation : classDecl.getModifiers().getAnnotations()) {
+			String name = annotation.getAnnotationType().toString();
+			if (name.equals(FAST_TO_STRING) ||
+			    name.equals(FastToString.class.getSimpleName()) && isImported(unit)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isImported(JCTree.JCCompilationUnit unit) {
+		String onDemand = FAST_TO_STRING.substring(0, FAST_TO_STRING.lastIndexOf('.')) + ".*";
+		for (ImportTree importTree : unit.getImports()) {
+			String imported = importTree.getQualifiedIdentifier().toString();
+			if (!importTree.isStatic() && (imported.equals(FAST_TO_STRING) || imported.equals(onDemand))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the declared method, or null if the class can't have it, the error is reported then
+	 */
+	JCTree.JCMethodDecl declare(JCTree.JCClassDecl classDecl,
+	                            JCTree.JCAnnotation annotation,
+	                            JCTree.JCCompilationUnit unit) {
+		if ((classDecl.getModifiers().flags & (Flags.INTERFACE | Flags.ANNOTATION)) != 0) {
+			error("@" + FastToString.class.getSimpleName() + " requires a class", annotation, unit);
+			return null;
+		}
+		for (JCTree member : classDecl.defs) {
+			if (!(member instanceof JCTree.JCMethodDecl)) {
+				continue;
+			}
+			JCTree.JCMethodDecl method = (JCTree.JCMethodDecl) member;
+			if (method.name.contentEquals(TO_STRING) && method.params.isEmpty()) {
+				if (method.pos == annotation.pos) {
+					return method;
+				}
+				error("The class with @" + FastToString.class.getSimpleName() + " already declares toString()",
+				      method, unit);
+				return null;
+			}
+		}
+
+		treeMaker.at(annotation.pos);
+		JCTree.JCExpression superToString = treeMaker.Apply(com.sun.tools.javac.util.List.nil(),
+		                                                     treeMaker.Select(treeMaker.Ident(names._super),
+		                                                                      names.fromString(TO_STRING)),
+		                                                     com.sun.tools.javac.util.List.nil());
+		JCTree.JCMethodDecl method =
+				treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+				                    names.fromString(TO_STRING),
+				                    InnerStringVarsAstTranslator.qualifiedName(treeMaker, names, "java.lang.String"),
+				                    com.sun.tools.javac.util.List.nil(),
+				                    com.sun.tools.javac.util.List.nil(),
+				                    com.sun.tools.javac.util.List.nil(),
+				                    treeMaker.Block(0, com.sun.tools.javac.util.List.of(treeMaker.Return(superToString))),
+				                    null);
+		classDecl.defs = classDecl.defs.append(method);
+		return method;
+	}
+
+	/**
+	 * @return the template of the annotation, or null if it isn't a string literal, the error is reported then
+	 */
+	JCTree.JCLiteral template(JCTree.JCClassDecl classDecl,
+	                          JCTree.JCAnnotation annotation,
+	                          JCTree.JCCompilationUnit unit) {
+		if (annotation.args.isEmpty()) {
+			return treeMaker.at(annotation.pos).Literal(defaultTemplate(classDecl));
+		}
+		JCTree.JCExpression value = annotation.args.head;
+		if (value instanceof JCTree.JCAssign) {
+			value = ((JCTree.JCAssign) value).rhs;
+		}
+		if (!(value instanceof JCTree.JCLiteral) || !(((JCTree.JCLiteral) value).getValue() instanceof String)) {
+			error("The template of @" + FastToString.class.getSimpleName() + " should be a string literal", value, unit);
+			return null;
+		}
+		String template = (String) ((JCTree.JCLiteral) value).getValue();
+		if (template.isEmpty()) {
+			return treeMaker.at(annotation.pos).Literal(defaultTemplate(classDecl));
+		}
+		return (JCTree.JCLiteral) value;
+	}
+
+	/**
+	 * Tokens of the template, expressions of the default template are placed at their fields,
+	 * there is no text of them in the source.
+	 */
+	List<Token> tokens(JCTree.JCClassDecl classDecl, JCTree.JCAnnotation annotation, JCTree.JCLiteral template) {
+		if (template.pos != annotation.pos) {
+			return tokenizer.split(template);
+		}
+		String value = (String) template.getValue();
+		List<Token> tokens = new ArrayList<>();
+		int textStart = 0;
+		for (JCTree.JCVariableDecl field : fields(classDecl)) {
+			int expressionStart = value.indexOf("${" + field.name + "}", textStart) + 2;
+			tokens.add(new Token(value, textStart, expressionStart - 2 - textStart, TokenType.STRING_LITERAL, annotation.pos));
+			tokens.add(new Token(value, expressionStart, field.name.length(), TokenType.EXPRESSION, field.pos));
+			textStart = expressionStart + field.name.length() + 1;
+		}
+		tokens.add(new Token(value, textStart, value.length() - textStart, TokenType.STRING_LITERAL, annotation.pos));
+		return tokens;
+	}
+
+	private String defaultTemplate(JCTree.JCClassDecl classDecl) {
+		StringBuilder template = new StringBuilder().append(classDecl.name).append('(');
+		String separator = "";
+		for (JCTree.JCVariableDecl field : fields(classDecl)) {
+			template.append(separator).append(field.name).append("=${").append(field.name).append('}');
+			separator = ", ";
+		}
+		return template.append(')').toString();
+	}
+
+	private List<JCTree.JCVariableDecl> fields(JCTree.JCClassDecl classDecl) {
+		List<JCTree.JCVariableDecl> fields = new ArrayList<>();
+		for (JCTree member : classDecl.defs) {
+			if (member instanceof JCTree.JCVariableDecl &&
+			    (((JCTree.JCVariableDecl) member).getModifiers().flags & Flags.STATIC) == 0) {
+				fields.add((JCTree.JCVariableDecl) member);
+			}
+		}
+		return fields;
+	}
+
+	private void error(String message, JCTree tree, JCTree.JCCompilationUnit unit) {
+		trees.printMessage(Diagnostic.Kind.ERROR, message, tree, unit);
+	}
+}
@@ -0,0 +1,627 @@
+package com.antkorwin.betterstrings.ast;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import com.antkorwin.betterstrings.ProcessingMetrics;
+import com.antkorwin.betterstrings.tokenizer.FormatSpec;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symtab;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.jvm.ByteCodes;
+import com.sun.tools.javac.model.JavacElements;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Names;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The second phase of the translation, it runs when a class is attributed
+ * and uses types of expressions to simplify the code which is generated
+ * by {@link InnerStringVarsAstTranslator}:
+ * <ul>
+ * <li>values of expressions are appended to the concatenation as is,
+ * without `String.valueOf(...)`, so primitives don't become strings
+ * before the concatenation;</li>
+ * <li>`Objects.toString(...)` of the callToStringExplicitly mode is dropped for primitives
+ * (they aren't boxed anymore) and for values which are never null:
+ * literals, `this` and `new`;</li>
+ * <li>the capacity of the builder is estimated by types of values;</li>
+ * <li>a literal whose expressions are constants (e.g. `static final` fields)
+ * is folded into one constant string;</li>
+ * <li>conditions of guarded logger calls are resolved, see {@link LoggerGuard};</li>
+ * <li>conversions of format specifiers are checked by types of values.</li>
+ * </ul>
+ * Changed trees stay attributed, so the rest of the compilation works as usual.
+ */
+public class TypeAwareLowering implements TaskListener {
+
+	/**
+	 * `operator` of {@link JCTree.JCBinary}, it's found once, {@code null} when it can't be set.
+	 */
+	private static volatile Field operatorField = findOperatorField();
+
+	private final JavacTask task;
+	private final ProcessingMetrics metrics;
+	private final Map<JCTree.JCClassDecl, List<JCTree.JCParens>> generated = new IdentityHashMap<>();
+	private final Map<JCTree.JCClassDecl, List<JCTree.JCIf>> guards = new IdentityHashMap<>();
+	private final Map<JCTree.JCClassDecl, Map<JCTree.JCMethodInvocation, FormatSpec>> formats = new IdentityHashMap<>();
+
+	private Runnable afterLowering;
+	private TreeMaker treeMaker;
+	private Symtab symtab;
+	private Types types;
+	private Names names;
+	private TypeElement stringBuilder;
+
+	public TypeAwareLowering(JavacTask task, ProcessingMetrics metrics) {
+		this.task = task;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param topLevelClass class which contains the expression
+	 * @param holder        parentheses around the code of a string literal with expressions,
+	 *                      the code is replaced in the holder when it's folded into a constant
+	 */
+	void register(JCTree.JCClassDecl topLevelClass, JCTree.JCParens holder) {
+		generated.computeIfAbsent(topLevelClass, c -> new ArrayList<>()).add(holder);
+	}
+
+	/**
+	 * @param topLevelClass class which contains the guard
+	 * @param guard         `if` around a logger call, with a placeholder in the condition
+	 */
+	void registerGuard(JCTree.JCClassDecl topLevelClass, JCTree.JCIf guard) {
+		guards.computeIfAbsent(topLevelClass, c -> new ArrayList<>()).add(guard);
+	}
+
+	/**
+	 * @param topLevelClass class which contains the call
+	 * @param call          the call of {@link com.antkorwin.betterstrings.Formats} with the value in the first argument
+	 * @param format        the format of the call
+	 */
+	void registerFormat(JCTree.JCClassDecl topLevelClass, JCTree.JCMethodInvocation call, FormatSpec format) {
+		formats.computeIfAbsent(topLevelClass, c -> new LinkedHashMap<>()).put(call, format);
+	}
+
+	@Override
+	public void started(TaskEvent event) {
+	}
+
+	@Override
+	public void finished(TaskEvent event) {
+
+		if (event.getKind() != TaskEvent.Kind.ANALYZE || isEmpty()) {
+			return;
+		}
+		JCTree.JCClassDecl topLevelClass = findClass(event);
+		List<JCTree.JCParens> holders = generated.remove(topLevelClass);
+		List<JCTree.JCIf> classGuards = guards.remove(topLevelClass);
+		Map<JCTree.JCMethodInvocation, FormatSpec> classFormats = formats.remove(topLevelClass);
+		if (holders == null && classGuards == null && classFormats == null) {
+			return;
+		}
+		long start = System.nanoTime();
+		if (classFormats != null) {
+			checkFormats(classFormats, (JCTree.JCCompilationUnit) event.getCompilationUnit());
+		}
+		lowerClass(holders, classGuards);
+		metrics.addLoweringNanos(event.getCompilationUnit().getSourceFile().getName(), System.nanoTime() - start);
+		if (isEmpty() && afterLowering != null) {
+			Runnable action = afterLowering;
+			afterLowering = null;
+			action.run();
+		}
+	}
+
+	/**
+	 * @param action runs when all classes which are registered for the lowering are lowered,
+	 *               it doesn't run when no class is waiting for the lowering
+	 *               or the compilation stops before the lowering
+	 */
+	public void afterLowering(Runnable action) {
+		if (!isEmpty()) {
+			afterLowering = action;
+		}
+	}
+
+	private boolean isEmpty() {
+		return generated.isEmpty() && guards.isEmpty() && formats.isEmpty();
+	}
+
+	/**
+	 * Types which a conversion can't format are errors at compile time, as {@link java.util.Formatter}
+	 * throws for them at runtime. A value of a primitive type is checked by the type, a reference
+	 * is checked when it can't be cast to a supported type, e.g. a string for `d` or a char for `x`,
+	 * while an {@link Object} is checked by {@link com.antkorwin.betterstrings.Formats} at runtime.
+	 */
+	private void checkFormats(Map<JCTree.JCMethodInvocation, FormatSpec> classFormats, JCTree.JCCompilationUnit unit) {
+		Context context = ((BasicJavacTask) task).getContext();
+		Types types = Types.instance(context);
+		JavacElements elements = JavacElements.instance(context);
+		JavacTrees trees = JavacTrees.instance(context);
+		for (Map.Entry<JCTree.JCMethodInvocation, FormatSpec> entry : classFormats.entrySet()) {
+			JCTree.JCExpression value = entry.getKey().args.head;
+			Type type = value.type;
+			if (type == null || type.isErroneous() || type.hasTag(TypeTag.BOT)) {
+				continue;
+			}
+			char conversion = Character.toLowerCase(entry.getValue().getConversion());
+			boolean applicable;
+			switch (conversion) {
+				case 'd':
+				case 'x':
+					applicable = type.isPrimitive()
+					             ? isIntegral(type)
+					             : isCastable(types, elements, type, "java.lang.Long", "java.lang.Integer",
+					                          "java.lang.Short", "java.lang.Byte", "java.math.BigInteger");
+					break;
+				case 'f':
+					applicable = type.isPrimitive()
+					             ? isIntegral(type) || type.hasTag(TypeTag.FLOAT) || type.hasTag(TypeTag.DOUBLE)
+					             : isCastable(types, elements, type, "java.lang.Number");
+					break;
+				default:
+					applicable = true;
+			}
+			if (!applicable) {
+				trees.printMessage(Diagnostic.Kind.ERROR,
+				                   "Wrong format `" + entry.getValue() + "`, the conversion `" +
+				                   entry.getValue().getConversion() + "` isn't applicable to " + type,
+				                   value,
+				                   unit);
+			}
+		}
+	}
+
+	private boolean isIntegral(Type type) {
+		return type.hasTag(TypeTag.BYTE) || type.hasTag(TypeTag.SHORT) ||
+		       type.hasTag(TypeTag.INT) || type.hasTag(TypeTag.LONG);
+	}
+
+	private boolean isCastable(Types types, JavacElements elements, Type type, String... supportedTypes) {
+		for (String supportedType : supportedTypes) {
+			if (types.isCastable(type, elements.getTypeElement(supportedType).asType())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void lowerClass(List<JCTree.JCParens> holders, List<JCTree.JCIf> classGuards) {
+		// the context of the compilation is changed between rounds of processing in JDK 8
+		Context context = ((BasicJavacTask) task).getContext();
+		if (Log.instance(context).nerrors > 0) {
+			return;
+		}
+		this.treeMaker = TreeMaker.instance(context);
+		this.symtab = Symtab.instance(context);
+		this.types = Types.instance(context);
+		this.names = Names.instance(context);
+		this.stringBuilder = JavacElements.instance(context).getTypeElement("java.lang.StringBuilder");
+
+		for (JCTree.JCParens holder : holders == null ? Collections.<JCTree.JCParens>emptyList() : holders) {
+			if (holder.type != null) {
+				lower(holder);
+			}
+		}
+		if (classGuards != null) {
+			LoggerGuard loggerGuard = new LoggerGuard(context);
+			for (JCTree.JCIf guard : classGuards) {
+				if (guard.cond.type != null) {
+					loggerGuard.resolve(guard);
+				}
+			}
+		}
+	}
+
+	private JCTree.JCClassDecl findClass(TaskEvent event) {
+		JCTree.JCCompilationUnit unit = (JCTree.JCCompilationUnit) event.getCompilationUnit();
+		for (JCTree def : unit.defs) {
+			if (def instanceof JCTree.JCClassDecl && ((JCTree.JCClassDecl) def).sym == event.getTypeElement()) {
+				return (JCTree.JCClassDecl) def;
+			}
+		}
+		return null;
+	}
+
+	private void lower(JCTree.JCParens holder) {
+
+		JCTree.JCExpression expression = holder.expr;
+		List<JCTree.JCExpression> parts;
+		if (expression instanceof JCTree.JCBinary) {
+			parts = lowerConcatenation((JCTree.JCBinary) expression);
+		} else if (isBuilder(expression)) {
+			parts = lowerBuilder((JCTree.JCMethodInvocation) expression);
+		} else {
+			if (expression instanceof JCTree.JCParens) {
+				JCTree.JCParens slot = (JCTree.JCParens) expression;
+				slot.expr = dropObjectsToString(slot.expr);
+			} else if (expression instanceof JCTree.JCMethodInvocation) {
+				// String.valueOf(...) of a single expression
+				JCTree.JCMethodInvocation valueOf = (JCTree.JCMethodInvocation) expression;
+				if (valueOf.args.size() == 1 && valueOf.args.head instanceof JCTree.JCParens) {
+					JCTree.JCParens slot = (JCTree.JCParens) valueOf.args.head;
+					slot.expr = dropObjectsToString(slot.expr);
+				}
+			}
+			parts = Collections.singletonList(expression);
+		}
+
+		String constant = constantText(parts);
+		if (constant != null) {
+			// javac loads a constant by `ldc`, it's the same as for a literal without expressions
+			holder.expr = treeMaker.at(holder.pos).Literal(constant);
+			holder.type = holder.expr.type;
+		}
+	}
+
+	/**
+	 * @return the text of the concatenation of parts, or {@code null} if any part isn't a constant
+	 */
+	private String constantText(List<JCTree.JCExpression> parts) {
+		StringBuilder text = new StringBuilder();
+		for (JCTree.JCExpression part : parts) {
+			String constant = constantText(part);
+			if (constant == null) {
+				return null;
+			}
+			text.append(constant);
+		}
+		return text.toString();
+	}
+
+	private String constantText(JCTree.JCExpression part) {
+		JCTree.JCExpression expression = TreeInfo.skipParens(part);
+		if (expression.type == null) {
+			return null;
+		}
+		if (expression.type.constValue() != null) {
+			return expression.type.stringValue();
+		}
+		JCTree.JCExpression value = valueOfStringValueOf(expression);
+		if (value == null) {
+			JCTree.JCMethodInvocation call = objectsToString(expression);
+			value = call == null ? null : call.args.head;
+		}
+		return value == null ? null : constantText(value);
+	}
+
+	/**
+	 * The concatenation is a left-deep chain of binaries,
+	 * the first operand is the left operand of the innermost binary.
+	 *
+	 * @return operands of the concatenation
+	 */
+	private List<JCTree.JCExpression> lowerConcatenation(JCTree.JCBinary concatenation) {
+
+		List<JCTree.JCBinary> binaries = new ArrayList<>();
+		JCTree.JCExpression node = concatenation;
+		while (node instanceof JCTree.JCBinary && node.hasTag(JCTree.Tag.PLUS)) {
+			binaries.add((JCTree.JCBinary) node);
+			node = ((JCTree.JCBinary) node).lhs;
+		}
+
+		for (int i = binaries.size() - 1; i >= 0; i--) {
+			JCTree.JCBinary binary = binaries.get(i);
+			JCTree.JCExpression lhs = i == binaries.size() - 1 ? lowerOperand(binary.lhs) : binary.lhs;
+			JCTree.JCExpression rhs = lowerOperand(binary.rhs);
+			if ((lhs != binary.lhs || rhs != binary.rhs) &&
+			    setOperator(binary, stringConcatenation(lhs.type, rhs.type))) {
+				binary.lhs = lhs;
+				binary.rhs = rhs;
+			}
+		}
+
+		List<JCTree.JCExpression> operands = new ArrayList<>(binaries.size() + 1);
+		operands.add(binaries.get(binaries.size() - 1).lhs);
+		for (int i = binaries.size() - 1; i >= 0; i--) {
+			operands.add(binaries.get(i).rhs);
+		}
+		return operands;
+	}
+
+	private JCTree.JCExpression lowerOperand(JCTree.JCExpression operand) {
+
+		if (!(operand instanceof JCTree.JCParens)) {
+			return operand;
+		}
+		JCTree.JCParens slot = (JCTree.JCParens) operand;
+		JCTree.JCExpression value = valueOfStringValueOf(slot.expr);
+		if (value == null) {
+			value = primitiveValueOfObjectsToString(slot.expr);
+		}
+		if (value != null) {
+			return value;
+		}
+		slot.expr = dropObjectsToString(slot.expr);
+		return operand;
+	}
+
+	private boolean isBuilder(JCTree.JCExpression expression) {
+		if (!(expression instanceof JCTree.JCMethodInvocation)) {
+			return false;
+		}
+		JCTree.JCExpression method = ((JCTree.JCMethodInvocation) expression).meth;
+		return method instanceof JCTree.JCFieldAccess &&
+		       ((JCTree.JCFieldAccess) method).name == names.toString &&
+		       isAppend(((JCTree.JCFieldAccess) method).selected);
+	}
+
+	private boolean isAppend(JCTree.JCExpression expression) {
+		if (!(expression instanceof JCTree.JCMethodInvocation)) {
+			return false;
+		}
+		JCTree.JCExpression method = ((JCTree.JCMethodInvocation) expression).meth;
+		return method instanceof JCTree.JCFieldAccess &&
+		       ((JCTree.JCFieldAccess) method).name.contentEquals("append");
+	}
+
+	/**
+	 * `new StringBuilder(capacity).append(...)...toString()`
+	 *
+	 * @return appended values
+	 */
+	private List<JCTree.JCExpression> lowerBuilder(JCTree.JCMethodInvocation builder) {
+
+		int capacity = 0;
+		List<JCTree.JCExpression> values = new ArrayList<>();
+		JCTree.JCExpression node = ((JCTree.JCFieldAccess) builder.meth).selected;
+		while (isAppend(node)) {
+			JCTree.JCMethodInvocation append = (JCTree.JCMethodInvocation) node;
+			capacity += lowerAppend(append);
+			values.add(0, append.args.head);
+			node = ((JCTree.JCFieldAccess) append.meth).selected;
+		}
+		if (!(node instanceof JCTree.JCNewClass) || ((JCTree.JCNewClass) node).args.size() != 1 ||
+		    !(((JCTree.JCNewClass) node).args.head instanceof JCTree.JCLiteral)) {
+			return values;
+		}
+		JCTree.JCLiteral initialCapacity = (JCTree.JCLiteral) ((JCTree.JCNewClass) node).args.head;
+		initialCapacity.value = capacity;
+		initialCapacity.type = symtab.intType.constType(capacity);
+		return values;
+	}
+
+	/**
+	 * @return expected length of the appended value
+	 */
+	private int lowerAppend(JCTree.JCMethodInvocation append) {
+
+		JCTree.JCExpression argument = append.args.head;
+		if (argument instanceof JCTree.JCParens) {
+			JCTree.JCParens slot = (JCTree.JCParens) argument;
+			JCTree.JCExpression value = valueOfStringValueOf(slot.expr);
+			if (value == null) {
+				value = primitiveValueOfObjectsToString(slot.expr);
+			}
+			Symbol.MethodSymbol method = value == null ? null : appendMethod(value.type);
+			if (method != null) {
+				JCTree.JCFieldAccess select = (JCTree.JCFieldAccess) append.meth;
+				select.sym = method;
+				select.type = method.type;
+				append.args = com.sun.tools.javac.util.List.of(value);
+				argument = value;
+			} else {
+				slot.expr = dropObjectsToString(slot.expr);
+			}
+		}
+		if (argument instanceof JCTree.JCLiteral && argument.type.constValue() != null) {
+			Object text = ((JCTree.JCLiteral) argument).getValue();
+			return text instanceof String ? ((String) text).length() : 1;
+		}
+		return estimatedLength(argument.type);
+	}
+
+	private Symbol.MethodSymbol appendMethod(Type type) {
+
+		Type parameter = type.hasTag(TypeTag.BYTE) || type.hasTag(TypeTag.SHORT)
+		                 ? symtab.intType
+		                 : type.baseType();
+		for (Element element : stringBuilder.getEnclosedElements()) {
+			if (element.getKind() != ElementKind.METHOD || !element.getSimpleName().contentEquals("append")) {
+				continue;
+			}
+			ExecutableElement method = (ExecutableElement) element;
+			if (method.getParameters().size() == 1 &&
+			    types.isSameType((Type) method.getParameters().get(0).asType(), parameter)) {
+				return (Symbol.MethodSymbol) method;
+			}
+		}
+		return null;
+	}
+
+	private int estimatedLength(Type type) {
+		switch (type.getTag()) {
+			case BOOLEAN:
+				return 5;
+			case CHAR:
+				return 1;
+			case BYTE:
+				return 4;
+			case SHORT:
+				return 6;
+			case INT:
+				return 11;
+			case LONG:
+				return 20;
+			case FLOAT:
+				return 15;
+			case DOUBLE:
+				return 24;
+			default:
+				return InnerStringVarsAstTranslator.EXPRESSION_LENGTH_ESTIMATE;
+		}
+	}
+
+	/**
+	 * @return `value` of `String.valueOf(value)`, or {@code null} if the expression
+	 * has another shape or the value is a `char[]` (its content is the result of `valueOf`)
+	 */
+	private JCTree.JCExpression valueOfStringValueOf(JCTree.JCExpression expression) {
+
+		if (!(expression instanceof JCTree.JCMethodInvocation)) {
+			return null;
+		}
+		JCTree.JCMethodInvocation invocation = (JCTree.JCMethodInvocation) expression;
+		Symbol method = TreeInfo.symbol(invocation.meth);
+		if (method == null || invocation.args.size() != 1 ||
+		    !method.name.contentEquals("valueOf") ||
+		    method.owner != symtab.stringType.tsym) {
+			return null;
+		}
+		Type type = invocation.args.head.type;
+		if (type == null || type.hasTag(TypeTag.BOT) ||
+		    (types.isArray(type) && types.elemtype(type).hasTag(TypeTag.CHAR))) {
+			return null;
+		}
+		return invocation.args.head;
+	}
+
+	/**
+	 * @return primitive value of `java.util.Objects.toString(value)`
+	 * or {@code null} if the expression has another shape
+	 */
+	private JCTree.JCExpression primitiveValueOfObjectsToString(JCTree.JCExpression expression) {
+		JCTree.JCMethodInvocation call = objectsToString(expression);
+		if (call == null) {
+			return null;
+		}
+		JCTree.JCExpression value = call.args.head;
+		return value.type.isPrimitive() ? value : null;
+	}
+
+	/**
+	 * @return `value.toString()` (or just the value of a string) if the value
+	 * is never null and it isn't a primitive, otherwise the same expression
+	 */
+	private JCTree.JCExpression dropObjectsToString(JCTree.JCExpression expression) {
+		JCTree.JCMethodInvocation call = objectsToString(expression);
+		if (call == null) {
+			return expression;
+		}
+		JCTree.JCExpression value = call.args.head;
+		if (value.type.isPrimitive() || !isNeverNull(value)) {
+			return expression;
+		}
+		if (types.isSameType(value.type, symtab.stringType)) {
+			return value;
+		}
+		Symbol.MethodSymbol toString = objectToString();
+		if (toString == null) {
+			return expression;
+		}
+		return treeMaker.at(call.pos).App(treeMaker.Select(value, toString));
+	}
+
+	private JCTree.JCMethodInvocation objectsToString(JCTree.JCExpression expression) {
+
+		if (!(expression instanceof JCTree.JCMethodInvocation)) {
+			return null;
+		}
+		JCTree.JCMethodInvocation call = (JCTree.JCMethodInvocation) expression;
+		Symbol method = TreeInfo.symbol(call.meth);
+		if (method == null || call.args.size() != 1 || call.args.head.type == null ||
+		    method.name != names.toString ||
+		    !method.owner.getQualifiedName().contentEquals("java.util.Objects")) {
+			return null;
+		}
+		return call;
+	}
+
+	private Symbol.MethodSymbol objectToString() {
+
+		for (Element element : symtab.objectType.tsym.getEnclosedElements()) {
+			if (element.getKind() == ElementKind.METHOD && element.getSimpleName().contentEquals("toString") &&
+			    ((ExecutableElement) element).getParameters().isEmpty()) {
+				return (Symbol.MethodSymbol) element;
+			}
+		}
+		return null;
+	}
+
+	private boolean isNeverNull(JCTree.JCExpression expression) {
+		JCTree.JCExpression value = TreeInfo.skipParens(expression);
+		if (value.type.constValue() != null) {
+			return true;
+		}
+		if (value instanceof JCTree.JCLiteral) {
+			return !value.type.hasTag(TypeTag.BOT);
+		}
+		if (value instanceof JCTree.JCNewClass || value instanceof JCTree.JCNewArray) {
+			return true;
+		}
+		return TreeInfo.name(value) == names._this;
+	}
+
+	/**
+	 * Operator of the string concatenation for operands of the given types.
+	 */
+	private Symbol.OperatorSymbol stringConcatenation(Type left, Type right) {
+		Type type = new Type.MethodType(com.sun.tools.javac.util.List.of(operandType(left), operandType(right)),
+		                                symtab.stringType,
+		                                com.sun.tools.javac.util.List.nil(),
+		                                symtab.methodClass);
+		return new Symbol.OperatorSymbol(names.fromString("+"), type, ByteCodes.string_add, symtab.noSymbol);
+	}
+
+	/**
+	 * The type of the operator field is changed in JDK 9, so the field is set by reflection
+	 * to run on any version of javac. The package of the field has to be exported to the processor
+	 * on JDK 9+ (`--add-exports jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED`), otherwise
+	 * javac 9-15 warns about the illegal reflective access and javac 16+ denies it,
+	 * operands of concatenations aren't lowered then.
+	 *
+	 * @return false if the operator isn't set, the binary should stay as is then
+	 */
+	private static boolean setOperator(JCTree.JCBinary binary, Symbol.OperatorSymbol operator) {
+		Field field = operatorField;
+		if (field == null) {
+			return false;
+		}
+		try {
+			field.set(binary, operator);
+			return true;
+		} catch (IllegalAccessException | RuntimeException e) {
+			operatorField = null;
+			return false;
+		}
+	}
+
+	private static Field findOperatorField() {
+		try {
+			return JCTree.JCBinary.class.getField("operator");
+		} catch (NoSuchFieldException e) {
+			return null;
+		}
+	}
+
+	private Type operandType(Type type) {
+		if (type.isPrimitive()) {
+			return type.baseType();
+		}
+		return types.isSameType(type, symtab.stringType) ? symtab.stringType : symtab.objectType;
+	}
+}
@@ -0,0 +1,348 @@
+package com.antkorwin.betterstrings.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardLocation;
+
+import com.antkorwin.betterstrings.Configuration;
+import com.antkorwin.betterstrings.InterpolatedTemplate;
+import com.antkorwin.betterstrings.tokenizer.Token;
+import com.antkorwin.betterstrings.tokenizer.TokenType;
+import com.antkorwin.betterstrings.tokenizer.Tokenizer;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * Generates implementations of types with {@link InterpolatedTemplate} methods,
+ * each method returns the text of its template as a string literal:
+ * <pre>
+ * public class InvoicesImpl implements Invoices {
+ *     // templates/invoice.txt
+ *     &#64;Override
+ *     public String invoice(Order order) {
+ *         return "Invoice ${order.getId()}\n...";
+ *     }
+ * }
+ * </pre>
+ * The generated source is a root element of the next round, so the literal is
+ * translated as any other one: texts between expressions are constants and
+ * there is no parsing of the template at runtime.
+ */
+public class TemplateGenerator {
+
+	public static final String IMPLEMENTATION_SUFFIX = "Impl";
+
+	/**
+	 * The limit of the length of a string constant in the class file.
+	 */
+	private static final int MAX_CONSTANT_BYTES = 65535;
+
+	private static final JavaFileManager.Location[] TEMPLATE_LOCATIONS = {StandardLocation.SOURCE_PATH,
+	                                                                      StandardLocation.CLASS_OUTPUT,
+	                                                                      StandardLocation.CLASS_PATH};
+
+	private final Filer filer;
+	private final Messager messager;
+	private final Trees trees;
+	private final ProcessingEnvironment env;
+	private final List<String> templatesPath;
+	private final Tokenizer tokenizer = new Tokenizer();
+	private final Set<String> generatedTypes = new HashSet<>();
+	private final Set<String> implementations = new HashSet<>();
+
+	public TemplateGenerator(ProcessingEnvironment env, Configuration configuration) {
+		this.env = env;
+		this.filer = env.getFiler();
+		this.messager = env.getMessager();
+		this.trees = Trees.instance(env);
+		this.templatesPath = configuration.getTemplatesPath();
+	}
+
+	/**
+	 * @param methods elements annotated by {@link InterpolatedTemplate} in a round
+	 */
+	public void generate(Set<? extends Element> methods) {
+		Map<TypeElement, List<ExecutableElement>> methodsOfTypes = new LinkedHashMap<>();
+		for (Element method : methods) {
+			if (method.getKind() != ElementKind.METHOD) {
+				continue;
+			}
+			methodsOfTypes.computeIfAbsent((TypeElement) method.getEnclosingElement(), type -> new ArrayList<>())
+			              .add((ExecutableElement) method);
+		}
+		methodsOfTypes.forEach(this::generate);
+	}
+
+	/**
+	 * @param typeName the qualified name of a top-level type
+	 * @return true if the type is a generated implementation of templates,
+	 * which is translated regardless of the scope of the interpolation
+	 */
+	public boolean isImplementation(String typeName) {
+		return implementations.contains(typeName);
+	}
+
+	private void generate(TypeElement type, List<ExecutableElement> methods) {
+		if (!isImplementable(type) || !generatedTypes.add(type.getQualifiedName().toString())) {
+			return;
+		}
+		StringBuilder body = new StringBuilder();
+		boolean valid = true;
+		for (ExecutableElement method : methods) {
+			valid &= appendMethod(body, type, method);
+		}
+		for (Element member : type.getEnclosedElements()) {
+			if (member.getKind() == ElementKind.METHOD &&
+			    member.getModifiers().contains(Modifier.ABSTRACT) &&
+			    member.getAnnotation(InterpolatedTemplate.class) == null) {
+				error(member, "The abstract method " + member.getSimpleName() + " of a type with templates " +
+				              "should be annotated by @" + InterpolatedTemplate.class.getSimpleName());
+				valid = false;
+			}
+		}
+		if (valid) {
+			writeImplementation(type, body);
+		}
+	}
+
+	private boolean isImplementable(TypeElement type) {
+		if (type.getKind() != ElementKind.INTERFACE &&
+		    (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.ABSTRACT))) {
+			error(type, "Templates are allowed in interfaces and abstract classes only");
+			return false;
+		}
+		if (type.getNestingKind() == NestingKind.MEMBER &&
+		    type.getKind() == ElementKind.CLASS &&
+		    !type.getModifiers().contains(Modifier.STATIC)) {
+			error(type, "A class with templates should be a top-level or static nested class");
+			return false;
+		}
+		if (!type.getTypeParameters().isEmpty()) {
+			error(type, "Templates aren't supported in generic types");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean appendMethod(StringBuilder body, TypeElement type, ExecutableElement method) {
+		String path = method.getAnnotation(InterpolatedTemplate.class).value();
+		if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+			error(method, "The method with a template should be abstract");
+			return false;
+		}
+		if (!method.getTypeParameters().isEmpty()) {
+			error(method, "Templates aren't supported in generic methods");
+			return false;
+		}
+		TypeMirror string = env.getElementUtils().getTypeElement(String.class.getCanonicalName()).asType();
+		if (!env.getTypeUtils().isAssignable(string, method.getReturnType())) {
+			error(method, "The method with a template should return String");
+			return false;
+		}
+		String template = readTemplate(path);
+		if (template == null) {
+			error(method, "The template " + path + " isn't found in the templates path, the source path and the class path");
+			return false;
+		}
+		String problem = check(template);
+		if (problem != null) {
+			error(method, "Wrong template " + path + ": " + problem);
+			return false;
+		}
+
+		body.append("\n\t// ").append(path.replaceAll("[\\r\\n]", " ")).append('\n')
+		    .append("\t@Override\n\t");
+		if (type.getKind() == ElementKind.INTERFACE || method.getModifiers().contains(Modifier.PUBLIC)) {
+			body.append("public ");
+		} else if (method.getModifiers().contains(Modifier.PROTECTED)) {
+			body.append("protected ");
+		}
+		body.append(method.getReturnType()).append(' ').append(method.getSimpleName()).append('(');
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			String parameterType = parameters.get(i).asType().toString();
+			if (method.isVarArgs() && i == parameters.size() - 1) {
+				parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+			}
+			body.append(i == 0 ? "" : ", ").append(parameterType).append(' ').append(parameters.get(i).getSimpleName());
+		}
+		body.append(')');
+		List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+		for (int i = 0; i < thrownTypes.size(); i++) {
+			body.append(i == 0 ? " throws " : ", ").append(thrownTypes.get(i));
+		}
+		body.append(" {\n\t\treturn ");
+		appendLiteral(body, template);
+		body.append(";\n\t}\n");
+		return true;
+	}
+
+	/**
+	 * @return the problem of the template which is found by the {@link Tokenizer},
+	 * or {@code null} if the template can be compiled
+	 */
+	private String check(String template) {
+		List<Token> tokens;
+		try {
+			tokens = tokenizer.split(template);
+		} catch (RuntimeException e) {
+			return e.getMessage();
+		}
+		if (tokens.isEmpty() && template.getBytes(StandardCharsets.UTF_8).length > MAX_CONSTANT_BYTES) {
+			return "the text is longer than " + MAX_CONSTANT_BYTES + " bytes";
+		}
+		for (Token token : tokens) {
+			if (token.getType() == TokenType.STRING_LITERAL &&
+			    token.getLength() * 3 > MAX_CONSTANT_BYTES &&
+			    token.getValue().getBytes(StandardCharsets.UTF_8).length > MAX_CONSTANT_BYTES) {
+				return "the text between expressions is longer than " + MAX_CONSTANT_BYTES + " bytes";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The value of the literal is the text of the template, non-ASCII characters are escaped,
+	 * so it doesn't depend on the encoding of sources.
+	 */
+	private void appendLiteral(StringBuilder body, String template) {
+		body.append('"');
+		for (int i = 0; i < template.length(); i++) {
+			char c = template.charAt(i);
+			switch (c) {
+				case '"':
+					body.append("\\\"");
+					break;
+				case '\\':
+					body.append("\\\\");
+					break;
+				case '\n':
+					body.append("\\n");
+					break;
+				case '\r':
+					body.append("\\r");
+					break;
+				case '\t':
+					body.append("\\t");
+					break;
+				default:
+					if (c < ' ') {
+						// unicode escapes of line breaks are translated before the lexer
+						body.append(String.format("\\%03o", (int) c));
+					} else if (c > '~') {
+						body.append(String.format("\\u%04x", (int) c));
+					} else {
+						body.append(c);
+					}
+			}
+		}
+		body.append('"');
+	}
+
+	private String readTemplate(String path) {
+		for (String directory : templatesPath) {
+			Path file = Paths.get(directory).resolve(path);
+			if (Files.isRegularFile(file)) {
+				try {
+					return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+				} catch (IOException e) {
+					return null;
+				}
+			}
+		}
+		for (JavaFileManager.Location location : TEMPLATE_LOCATIONS) {
+			try {
+				FileObject resource = filer.getResource(location, "", path);
+				try (InputStream input = resource.openInputStream()) {
+					return read(input);
+				}
+			} catch (IOException | RuntimeException e) {
+				// not found in this location, or the file manager doesn't support it
+			}
+		}
+		return null;
+	}
+
+	private String read(InputStream input) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private void writeImplementation(TypeElement type, StringBuilder body) {
+		PackageElement packageElement = env.getElementUtils().getPackageOf(type);
+		String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		String typeName = type.getQualifiedName().toString();
+		String simpleName = (packageName.isEmpty() ? typeName : typeName.substring(packageName.length() + 1))
+				                    .replace('.', '_') + IMPLEMENTATION_SUFFIX;
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		TreePath path = trees.getPath(type);
+		if (path != null) {
+			// expressions of templates see the same types as the code of the source file
+			CompilationUnitTree unit = path.getCompilationUnit();
+			for (ImportTree importTree : unit.getImports()) {
+				source.append(importTree.toString().trim()).append('\n');
+			}
+		}
+		source.append("\n/**\n * Templates of {@link ").append(typeName).append("}, generated by better-strings.\n */\n");
+		if (type.getModifiers().contains(Modifier.PUBLIC)) {
+			source.append("public ");
+		}
+		source.append("class ").append(simpleName)
+		      .append(type.getKind() == ElementKind.INTERFACE ? " implements " : " extends ").append(typeName)
+		      .append(" {\n")
+		      .append(body)
+		      .append("}\n");
+
+		String implementation = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		try (Writer writer = filer.createSourceFile(implementation, type).openWriter()) {
+			writer.write(source.toString());
+			implementations.add(implementation);
+		} catch (IOException e) {
+			error(type, "Can't write the implementation of templates: " + e);
+		}
+	}
+
+	private void error(Element element, String message) {
+		messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
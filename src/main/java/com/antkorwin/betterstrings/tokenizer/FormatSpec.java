@@ -0,0 +1,195 @@
+package com.antkorwin.betterstrings.tokenizer;
+
+import com.antkorwin.betterstrings.Formats;
+
+/**
+ * Created on 2026-10-18
+ * <p>
+ * The format specifier of an expression, {@link Token#getFormat()}:
+ * `[flags][width][.precision]conversion`, the subset of {@link java.util.Formatter}
+ * which is compiled in calls of {@link Formats}.
+ * <p>
+ * Conversions are `d` (decimal), `x` and `X` (hexadecimal), `f` (fixed-point decimal),
+ * `s` and `S` (string). Flags are `-` (left-justify), `0` (zero-padding), `+` (sign),
+ * `,` (grouping) and `#` (the `0x` prefix).
+ */
+public final class FormatSpec {
+
+	private static final String CONVERSIONS = "dxXfsS";
+	private static final int DEFAULT_FIXED_PRECISION = 6;
+
+	private final String spec;
+	private final int flags;
+	private final int width;
+	private final int precision;
+	private final char conversion;
+
+	private FormatSpec(String spec, int flags, int width, int precision, char conversion) {
+		this.spec = spec;
+		this.flags = flags;
+		this.width = width;
+		this.precision = precision;
+		this.conversion = conversion;
+	}
+
+	/**
+	 * @param spec the format without `:%`, e.g. `08d` or `.2f`
+	 * @return the checked format
+	 * @throws IllegalArgumentException if the format isn't supported
+	 */
+	public static FormatSpec parse(String spec) {
+		int i = 0;
+		int flags = 0;
+		while (i < spec.length() - 1) {
+			int flag = flag(spec.charAt(i));
+			if (flag == 0) {
+				break;
+			}
+			if ((flags & flag) != 0) {
+				throw wrongFormat(spec, "the flag `" + spec.charAt(i) + "` is repeated");
+			}
+			flags |= flag;
+			i++;
+		}
+		int widthStart = i;
+		while (i < spec.length() && Character.isDigit(spec.charAt(i))) {
+			i++;
+		}
+		int width = widthStart < i ? number(spec, widthStart, i) : -1;
+		int precision = -1;
+		if (i < spec.length() && spec.charAt(i) == '.') {
+			int precisionStart = ++i;
+			while (i < spec.length() && Character.isDigit(spec.charAt(i))) {
+				i++;
+			}
+			if (precisionStart == i) {
+				throw wrongFormat(spec, "the precision is expected after `.`");
+			}
+			precision = number(spec, precisionStart, i);
+		}
+		if (i != spec.length() - 1 || CONVERSIONS.indexOf(spec.charAt(i)) < 0) {
+			throw wrongFormat(spec, "supported conversions are d, x, X, f, s and S");
+		}
+		char conversion = spec.charAt(i);
+		check(spec, flags, width, precision, conversion);
+		if (Character.isUpperCase(conversion)) {
+			flags |= Formats.UPPER_CASE;
+		}
+		return new FormatSpec(spec, flags, width, precision, conversion);
+	}
+
+	private static void check(String spec, int flags, int width, int precision, char conversion) {
+		String allowedFlags;
+		switch (conversion) {
+			case 'd':
+				allowedFlags = "-0+,";
+				break;
+			case 'x':
+			case 'X':
+				allowedFlags = "-0#";
+				break;
+			case 'f':
+				allowedFlags = "-0+,";
+				break;
+			default:
+				allowedFlags = "-";
+		}
+		for (char flag : "-0+,#".toCharArray()) {
+			if ((flags & flag(flag)) != 0 && allowedFlags.indexOf(flag) < 0) {
+				throw wrongFormat(spec, "the flag `" + flag + "` isn't allowed with `" + conversion + "`");
+			}
+		}
+		if (precision >= 0 && conversion != 'f' && Character.toLowerCase(conversion) != 's') {
+			throw wrongFormat(spec, "the precision isn't allowed with `" + conversion + "`");
+		}
+		if ((flags & Formats.LEFT_JUSTIFY) != 0 && (flags & Formats.ZERO_PAD) != 0) {
+			throw wrongFormat(spec, "the flags `-` and `0` can't be used together");
+		}
+		if ((flags & (Formats.LEFT_JUSTIFY | Formats.ZERO_PAD)) != 0 && width < 0) {
+			throw wrongFormat(spec, "the flags `-` and `0` require the width");
+		}
+	}
+
+	private static int flag(char c) {
+		switch (c) {
+			case '-':
+				return Formats.LEFT_JUSTIFY;
+			case '0':
+				return Formats.ZERO_PAD;
+			case '+':
+				return Formats.PLUS;
+			case ',':
+				return Formats.GROUPING;
+			case '#':
+				return Formats.ALTERNATE;
+			default:
+				return 0;
+		}
+	}
+
+	private static int number(String spec, int start, int end) {
+		try {
+			return Integer.parseInt(spec.substring(start, end));
+		} catch (NumberFormatException e) {
+			throw wrongFormat(spec, "the number " + spec.substring(start, end) + " is too large");
+		}
+	}
+
+	private static IllegalArgumentException wrongFormat(String spec, String reason) {
+		return new IllegalArgumentException("Wrong format `%" + spec + "`, " + reason);
+	}
+
+	/**
+	 * @return the name of the method of {@link Formats} which formats the value
+	 */
+	public String getMethod() {
+		switch (conversion) {
+			case 'd':
+				return "decimal";
+			case 'x':
+			case 'X':
+				return "hex";
+			case 'f':
+				return "fixed";
+			default:
+				return "string";
+		}
+	}
+
+	/**
+	 * @return true if the method of {@link Formats} takes the precision
+	 */
+	public boolean hasPrecision() {
+		return conversion == 'f' || conversion == 's' || conversion == 'S';
+	}
+
+	/**
+	 * @return the precision, the default one for `f`, or -1 if there is no precision
+	 */
+	public int getPrecision() {
+		return precision < 0 && conversion == 'f' ? DEFAULT_FIXED_PRECISION : precision;
+	}
+
+	/**
+	 * @return the minimal length of the result, or -1 if there is no width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return bits of {@link Formats} flags
+	 */
+	public int getFlags() {
+		return flags;
+	}
+
+	public char getConversion() {
+		return conversion;
+	}
+
+	@Override
+	public String toString() {
+		return "%" + spec;
+	}
+}
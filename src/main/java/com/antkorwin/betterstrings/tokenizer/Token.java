@@ -5,23 +5,51 @@ package com.antkorwin.betterstrings.tokenizer;
  *
  * internal type which used to split string
  * literal with expressions on the list of tokens.
+ * <p>
+ * A token is a view on a part of the literal value,
+ * the text of the token is copied only by {@link #getValue()}.
  *
  * @author Korovin Anatoliy
  */
 public class Token {
 
-    private final String value;
+    private final String source;
+    private final int start;
+    private final int length;
     private final TokenType type;
     private final int offset;
+    private final String format;
 
     public Token(String value, TokenType type, int offset) {
-        this.value = value;
+        this(value, 0, value.length(), type, offset);
+    }
+
+    public Token(String source, int start, int length, TokenType type, int offset) {
+        this(source, start, length, type, offset, null);
+    }
+
+    public Token(String source, int start, int length, TokenType type, int offset, String format) {
+        this.source = source;
+        this.start = start;
+        this.length = length;
         this.type = type;
         this.offset = offset;
+        this.format = format;
     }
 
     public String getValue() {
-        return value;
+        return source.substring(start, start + length);
+    }
+
+    /**
+     * @return index of the first char of this token in the literal value
+     */
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
     }
 
     public TokenType getType() {
@@ -32,11 +60,20 @@ public class Token {
         return offset;
     }
 
+    /**
+     * @return the format specifier after the expression without `:%`
+     * (e.g. `.2f` of `${price:%.2f}`), or {@code null} if the expression has no format
+     */
+    public String getFormat() {
+        return format;
+    }
+
     @Override
     public String toString() {
         return "Token{" +
-               "value='" + value + '\'' +
+               "value='" + getValue() + '\'' +
                ", type=" + type +
+               (format != null ? ", format='" + format + '\'' : "") +
                '}';
     }
 }
@@ -17,6 +17,40 @@ public class Tokenizer {
 
 	private final String HEAD = "${";
 	private final String TAIL = "}";
+	/**
+	 * The separator of the format, it can't be a part of Java code outside of literals,
+	 * unlike `%` alone, which is the modulo.
+	 */
+	public static final String FORMAT = ":%";
+
+	/**
+	 * Cheap check of a source file before the translation,
+	 * {@code false} means that string literals of the file
+	 * have no expressions for sure.
+	 * <p>
+	 * Unicode and octal escapes may turn into `$` or `{` in the value
+	 * of a literal, so they are treated as a possible expression.
+	 */
+	public static boolean mayContainExpressions(CharSequence source) {
+		int length = source.length();
+		for (int i = 0; i < length - 1; i++) {
+			char c = source.charAt(i);
+			if (c == '$' && source.charAt(i + 1) == '{') {
+				return true;
+			}
+			if (c == '\\') {
+				char next = source.charAt(i + 1);
+				if (next == 'u' || Character.isDigit(next)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public boolean containsExpression(String literalValue) {
+		return literalValue.contains(HEAD);
+	}
 
 	public List<Token> split(JCTree.JCLiteral jcLiteral) {
 		String literalValue = (String) jcLiteral.getValue();
@@ -28,38 +62,124 @@ public class Tokenizer {
 		return split(literalValue, 0);
 	}
 
+	/**
+	 * Split the literal value by one pass. Expressions may contain
+	 * nested braces and string or char literals with braces inside.
+	 * <p>
+	 * A backslash before `${` makes it a part of the text,
+	 * each pair of backslashes before `${` turns into one backslash.
+	 */
 	public List<Token> split(String literalValue, int originalOffset) {
 		List<Token> tokens = new ArrayList<>();
-		int startIndex = 0;
+		int length = literalValue.length();
+		int textStart = 0;
+		int index = 0;
 
-		while (startIndex < literalValue.length()) {
+		while (index < length - 1) {
 
-			int headIndex = literalValue.indexOf(HEAD, startIndex);
-			int offset = originalOffset + headIndex + HEAD.length() + 1;
-			if (headIndex < 0) {
-				tokens.add(new Token(literalValue.substring(startIndex), TokenType.STRING_LITERAL, offset));
-				break;
+			if (literalValue.charAt(index) != '$' || literalValue.charAt(index + 1) != '{') {
+				index++;
+				continue;
 			}
 
-			int endIndex = literalValue.indexOf(TAIL, headIndex);
-			if (endIndex < 0) {
-				throw new RuntimeException("Not found ending bracket `}` of a variable declaration in string value: " +
-				                           literalValue);
+			int backslashes = 0;
+			while (index - backslashes > textStart && literalValue.charAt(index - backslashes - 1) == '\\') {
+				backslashes++;
 			}
+			addText(tokens, literalValue, textStart, index - backslashes + backslashes / 2, originalOffset);
 
-			String prefix = literalValue.substring(startIndex, headIndex);
-			if (!prefix.equals("")) {
-				tokens.add(new Token(prefix, TokenType.STRING_LITERAL, offset));
+			if (backslashes % 2 == 1) {
+				// escaped head, the text goes on from `$`
+				textStart = index;
+				index += HEAD.length();
+				continue;
 			}
 
-			String variable = literalValue.substring(headIndex + HEAD.length(), endIndex);
-			if (!variable.equals("")) {
-				tokens.add(new Token(variable, TokenType.EXPRESSION, offset));
+			int expressionStart = index + HEAD.length();
+			int expressionEnd = findExpressionEnd(literalValue, expressionStart);
+			if (expressionEnd > expressionStart) {
+				int formatStart = findFormatStart(literalValue, expressionStart, expressionEnd);
+				tokens.add(new Token(literalValue,
+				                     expressionStart,
+				                     formatStart - expressionStart,
+				                     TokenType.EXPRESSION,
+				                     originalOffset + expressionStart + 1,
+				                     formatStart < expressionEnd
+				                     ? literalValue.substring(formatStart + FORMAT.length(), expressionEnd)
+				                     : null));
 			}
-
-			startIndex = endIndex + TAIL.length();
+			index = textStart = expressionEnd + TAIL.length();
 		}
 
+		addText(tokens, literalValue, textStart, length, originalOffset);
 		return tokens;
 	}
+
+	private void addText(List<Token> tokens, String literalValue, int start, int end, int originalOffset) {
+		if (end > start) {
+			tokens.add(new Token(literalValue, start, end - start, TokenType.STRING_LITERAL, originalOffset + start + 1));
+		}
+	}
+
+	private int findExpressionEnd(String literalValue, int start) {
+		int depth = 0;
+		for (int i = start; i < literalValue.length(); i++) {
+			switch (literalValue.charAt(i)) {
+				case '"':
+				case '\'':
+					i = skipQuoted(literalValue, i);
+					break;
+				case '{':
+					depth++;
+					break;
+				case '}':
+					if (depth == 0) {
+						return i;
+					}
+					depth--;
+					break;
+				default:
+					break;
+			}
+		}
+		throw new RuntimeException("Not found ending bracket `}` of a variable declaration in string value: " +
+		                           literalValue);
+	}
+
+	/**
+	 * The format is the end of the expression after `:%`: flags, width, precision
+	 * and a letter of the conversion, e.g. `${price:%.2f}` or `${id:%08d}`,
+	 * it's checked by {@link FormatSpec}. `:%` inside string and char literals
+	 * of the expression is a part of the code.
+	 *
+	 * @return index of `:%` before the format, or the end of the expression if there is no format
+	 */
+	private int findFormatStart(String literalValue, int start, int end) {
+		int formatStart = end;
+		for (int i = start; i < end - 1; i++) {
+			char c = literalValue.charAt(i);
+			if (c == '"' || c == '\'') {
+				i = skipQuoted(literalValue, i);
+			} else if (literalValue.startsWith(FORMAT, i)) {
+				formatStart = i;
+			}
+		}
+		return formatStart;
+	}
+
+	/**
+	 * @return index of the closing quote or the length of the value if it's not closed
+	 */
+	private int skipQuoted(String literalValue, int start) {
+		char quote = literalValue.charAt(start);
+		for (int i = start + 1; i < literalValue.length(); i++) {
+			char c = literalValue.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == quote) {
+				return i;
+			}
+		}
+		return literalValue.length();
+	}
 }
@@ -0,0 +1,64 @@
+package com.antkorwin.betterstrings;
+
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppendersTest {
+
+    @Test
+    void appendToStringBuilder() {
+        // Arrange
+        StringBuilder out = new StringBuilder();
+        // Act
+        StringBuilder result = Appenders.to(out)
+                                        .append("a=").append(1)
+                                        .append(", b=").append((Object) null)
+                                        .append(", c=").append((Object) new char[]{'o', 'k'})
+                                        .append(", d=").append(2.5)
+                                        .target();
+        // Assert
+        assertThat(result).isSameAs(out);
+        assertThat(result.toString()).isEqualTo("a=1, b=null, c=ok, d=2.5");
+    }
+
+    @Test
+    void appendToWriter() throws IOException {
+        // Arrange
+        StringWriter out = new StringWriter();
+        // Act
+        StringWriter result = Appenders.to(out)
+                                       .append("a=").append(1L)
+                                       .append(", b=").append((CharSequence) null)
+                                       .append(", c=").append((Object) new char[]{'o', 'k'})
+                                       .append(", d=").append('x').append(true)
+                                       .target();
+        // Assert
+        assertThat(result).isSameAs(out);
+        assertThat(result.toString()).isEqualTo("a=1, b=null, c=ok, d=xtrue");
+    }
+
+    @Test
+    void appendCharsToAppendable() throws IOException {
+        // Arrange
+        CharBuffer out = CharBuffer.allocate(8);
+        // Act
+        Appenders.to(out).append((Object) new char[]{'o', 'k'}).append(42);
+        // Assert
+        out.flip();
+        assertThat(out.toString()).isEqualTo("ok42");
+    }
+
+    @Test
+    void appendToWithoutProcessing() throws IOException {
+        // Act
+        StringWriter result = BetterStrings.appendTo(new StringWriter(), "text");
+        // Assert
+        assertThat(result.toString()).isEqualTo("text");
+    }
+}
@@ -1,6 +1,25 @@
 package com.antkorwin.betterstrings;
 
 
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.antkorwin.betterstrings.ast.ExpressionParser;
 import com.jupitertools.compiletest.CompileTest;
 import com.jupitertools.compiletest.InstantiatedClass;
 import com.jupitertools.compiletest.LoadedClass;
@@ -43,6 +62,20 @@ class BetterStringsProcessorTest {
 		assertThat(result).isEqualTo("Hey-Ho!");
 	}
 
+	@Test
+	void escapedHeadOfExpression() {
+
+		@Language("Java") String classCode = "public class Test { " +
+		                                     "  public static String hello(){ " +
+		                                     "      String x = \"Ho!\"; " +
+		                                     "      return \"Hey-$\\173x}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		Object result = loadedTestClass(classCode).invokeStatic("hello");
+		assertThat(result).isEqualTo("Hey-Ho!");
+	}
+
 	@Test
 	void evaluateExpression() {
 
@@ -96,6 +129,85 @@ class BetterStringsProcessorTest {
 		assertThat(result).isEqualTo("7");
 	}
 
+	@Test
+	void severalTopLevelClassesInOneFile() {
+		@Language("Java") String classCode = "public class Test { " +
+		                                     "  public static String test(){ " +
+		                                     "      return \"${Helper.sum()} ${'$'}{x}\";" +
+		                                     "  }" +
+		                                     "}" +
+		                                     "class Helper { " +
+		                                     "  static String sum(){ " +
+		                                     "      return \"sum = ${3+4}\";" +
+		                                     "  }" +
+		                                     "}" +
+		                                     "enum Other { A }";
+
+		Object result = loadedTestClass(classCode).invokeStatic("test");
+		assertThat(result).isEqualTo("sum = 7 ${x}");
+	}
+
+	@Test
+	void wrongExpression() {
+		@Language("Java") String classCode = "public class Test { " +
+		                                     "  public static String sum(){ " +
+		                                     "      int x = 3;" +
+		                                     "      return \"sum = ${x +}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+		assertThat(diagnostics).extracting(d -> d.getMessage(null))
+		                       .anyMatch(m -> m.startsWith("Error while parsing expression in the string literal: x +"));
+	}
+
+	@Test
+	void reportAllWrongExpressionsOfFile() {
+		@Language("Java") String classCode = "public class Test { " +
+		                                     "  public static String sum(){ " +
+		                                     "      int x = 3;" +
+		                                     "      return \"${x} ${x +} ${x} ${(x}\";" +
+		                                     "  }" +
+		                                     "  public static String mul(){ " +
+		                                     "      int x = 3;" +
+		                                     "      return \"${x * x} ${x*}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+		assertThat(diagnostics).extracting(d -> d.getMessage(null))
+		                       .filteredOn(m -> m.startsWith("Error while parsing expression in the string literal"))
+		                       .hasSize(3);
+	}
+
+	private List<Diagnostic<? extends JavaFileObject>> compilationErrors(@Language("Java") String classCode) {
+		return new CompileTest().classCode("Test", classCode)
+		                        .processor(new BetterStringsProcessor())
+		                        .compile()
+		                        .getDiagnostics()
+		                        .stream()
+		                        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+		                        .collect(Collectors.toList());
+	}
+
+	@Test
+	void reuseParsedExpressionsBetweenCompilations() {
+		@Language("Java") String classCode = "public class Test { " +
+		                                     "  public static String hello(){ " +
+		                                     "      String cachedName = \"Ho!\"; " +
+		                                     "      return \"${cachedName.length()}-${cachedName}-${cachedName.length()}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		Object first = loadedTestClass(classCode).invokeStatic("hello");
+		long hits = ExpressionParser.getCache().getHitCount();
+		Object second = loadedTestClass(classCode).invokeStatic("hello");
+
+		assertThat(first).isEqualTo("3-Ho!-3");
+		assertThat(second).isEqualTo("3-Ho!-3");
+		assertThat(ExpressionParser.getCache().getHitCount() - hits).isGreaterThanOrEqualTo(2);
+	}
+
 	@Nested
 	class DisabledAnnotationTests {
 
@@ -196,6 +308,46 @@ class BetterStringsProcessorTest {
 			Object result = loadedTestClass(classCode).invokeStatic("sum");
 			assertThat(result).isEqualTo("sum = ${3 + 4}");
 		}
+
+		@Test
+		void backslash() {
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String sum(){ " +
+			                                     "      return \"sum = \\\\${3 + 4}, ${3 + 4}\";" +
+			                                     "  } " +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("sum");
+			assertThat(result).isEqualTo("sum = ${3 + 4}, 7");
+		}
+
+		@Test
+		void onlyEscapedExpressions() {
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String sum(){ " +
+			                                     "      return \"\\\\${a} + \\\\${b}\";" +
+			                                     "  } " +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("sum");
+			assertThat(result).isEqualTo("${a} + ${b}");
+		}
+	}
+
+	@Test
+	void bracesAndQuotesInExpression() {
+		@Language("Java") String classCode = "import java.util.*;" +
+		                                     "import java.util.function.*;" +
+		                                     "public class Test { " +
+		                                     "  public static String test(){ " +
+		                                     "      Map<String, Integer> map = Collections.singletonMap(\"}\", 1);" +
+		                                     "      Supplier<String> supplier = () -> \"{\";" +
+		                                     "      return \"${map.get(\\\"}\\\")} ${'}'} ${((Supplier<String>) () -> { return supplier.get(); }).get()}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		Object result = loadedTestClass(classCode).invokeStatic("test");
+		assertThat(result).isEqualTo("1 } {");
 	}
 
 	@Nested
@@ -420,5 +572,1383 @@ class BetterStringsProcessorTest {
 			Object result = loadedTestClass(classCode, CTSEII).invokeStatic("hello");
 			assertThat(result).isEqualTo("Hey-${x}");
 		}
+
+		@Test
+		void evaluateExpressionOnce() {
+			assertThat(evaluationsOfExpressions("valueOf")).isEqualTo("odd|null-odd:4|4");
+		}
+
+		@Test
+		void evaluateExpressionOnceWithIndyConcatStrategy() {
+			assertThat(evaluationsOfExpressions("indy")).isEqualTo("odd|null-odd:4|4");
+		}
+
+		@Test
+		void evaluateExpressionOnceWithStringBuilderConcatStrategy() {
+			assertThat(evaluationsOfExpressions("builder")).isEqualTo("odd|null-odd:4|4");
+		}
+
+		private Object evaluationsOfExpressions(String concatStrategy) {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  static int calls = 0;" +
+			                                     "  static Object next(){ " +
+			                                     "      calls++;" +
+			                                     "      return calls % 2 == 0 ? null : \"odd\";" +
+			                                     "  }" +
+			                                     "  static int count(){ return ++calls; }" +
+			                                     "  public static String test(){ " +
+			                                     "      String first = \"${next()}\";" +
+			                                     "      String all = \"${next()}-${next()}:${count()}\";" +
+			                                     "      return first + \"|\" + all + \"|\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			return loadedTestClass(classCode,
+			                       CTSEII,
+			                       "-A" + Options.CONCAT_STRATEGY + "=" + concatStrategy).invokeStatic("test");
+		}
+
+		@Test
+		void localVariableNamedLikeGeneratedCode() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      Object value = \"x\";" +
+			                                     "      Object betterStrings$value = null;" +
+			                                     "      return \"${value}${betterStrings$value}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("xnull");
+		}
+	}
+
+	@Nested
+	class IndyConcatStrategy {
+
+		static final String INDY = "-A" + Options.CONCAT_STRATEGY + "=indy";
+
+		@Test
+		void simple() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String hello(){ " +
+			                                     "      String x = \"Ho!\"; " +
+			                                     "      return \"Hey-${x}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, INDY).invokeStatic("hello");
+			assertThat(result).isEqualTo("Hey-Ho!");
+		}
+
+		@Test
+		void adjacentNumbers() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int x = 3;" +
+			                                     "      long y = 4;" +
+			                                     "      return \"${x}${y}=${x + y}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, INDY).invokeStatic("test");
+			assertThat(result).isEqualTo("34=7");
+		}
+
+		@Test
+		void singleNumber() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      char c = 'c';" +
+			                                     "      return \"${c + 1}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, INDY).invokeStatic("test");
+			assertThat(result).isEqualTo("100");
+		}
+
+		@Test
+		void charArray() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      char[] chars = {'o', 'k'};" +
+			                                     "      return \"v=${chars}, ${chars}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, INDY).invokeStatic("test");
+			assertThat(result).isEqualTo("v=ok, ok");
+		}
+
+		@Test
+		void withCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      Object x = null;" +
+			                                     "      int y = 4;" +
+			                                     "      return \"${x}${y}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode,
+			                                INDY,
+			                                CallToStringExplicitly.CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("null4");
+		}
+
+		@Test
+		void wrongStrategy() {
+
+			@Language("Java") String classCode = "public class Test { }";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics =
+					new CompileTest().classCode("Test", classCode)
+					                 .processor(new BetterStringsProcessor())
+					                 .options("-A" + Options.CONCAT_STRATEGY + "=unknown")
+					                 .compile()
+					                 .getDiagnostics();
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .contains("Unknown value of the concatStrategy option: unknown");
+		}
+	}
+
+
+	@Nested
+	class StringBuilderConcatStrategy {
+
+		static final String BUILDER = "-A" + Options.CONCAT_STRATEGY + "=builder";
+
+		@Test
+		void simple() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String hello(){ " +
+			                                     "      String x = \"Ho!\"; " +
+			                                     "      return \"Hey-${x}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, BUILDER).invokeStatic("hello");
+			assertThat(result).isEqualTo("Hey-Ho!");
+		}
+
+		@Test
+		void typedValues() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int x = 3;" +
+			                                     "      long y = 4;" +
+			                                     "      char c = 'c';" +
+			                                     "      char[] chars = {'o', 'k'};" +
+			                                     "      Object nothing = null;" +
+			                                     "      return \"${x}${y}=${x + y}, ${c}:${chars}:${nothing}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, BUILDER).invokeStatic("test");
+			assertThat(result).isEqualTo("34=7, c:ok:null");
+		}
+
+		@Test
+		void singleExpression() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      char c = 'c';" +
+			                                     "      return \"${c + 1}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, BUILDER).invokeStatic("test");
+			assertThat(result).isEqualTo("100");
+		}
+
+		@Test
+		void longText() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      String s = \"0123456789012345678901234567890123456789\";" +
+			                                     "      return \"${s}-${s}-${s}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			String s = "0123456789012345678901234567890123456789";
+			Object result = loadedTestClass(classCode, BUILDER).invokeStatic("test");
+			assertThat(result).isEqualTo(s + "-" + s + "-" + s);
+		}
+
+		@Test
+		void withCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      Object x = null;" +
+			                                     "      int y = 4;" +
+			                                     "      return \"${x}${y}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode,
+			                                BUILDER,
+			                                CallToStringExplicitly.CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("null4");
+		}
+	}
+
+
+	@Nested
+	class TypeAwareLowering {
+
+		@Test
+		void primitives() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      byte b = 1; short s = 2; int i = 3; long l = 4;" +
+			                                     "      float f = 5.5f; double d = 6.5; char c = 'c'; boolean z = true;" +
+			                                     "      return \"${b}${s}${i}${l}:${f}:${d}:${c}:${z}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("1234:5.5:6.5:c:true");
+		}
+
+		@Test
+		void referenceValues() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      return format(\"v\");" +
+			                                     "  }" +
+			                                     "  static <T> String format(T value){ " +
+			                                     "      char[] chars = {'o', 'k'};" +
+			                                     "      Integer boxed = 7;" +
+			                                     "      return \"${value}:${chars}:${boxed}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("v:ok:7");
+		}
+
+		@Test
+		void primitivesWithCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int i = 3; long l = 4; char c = 'c'; double d = 1.5;" +
+			                                     "      return \"${i}${l}${c}${d}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, CallToStringExplicitly.CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("34c1.5");
+		}
+
+		@Test
+		void neverNullValuesWithCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public String toString(){ return \"test\"; }" +
+			                                     "  public String test(){ " +
+			                                     "      Object nothing = null;" +
+			                                     "      return \"${this}:${new StringBuilder(\\\"sb\\\")}:${\\\"lit\\\"}:${nothing}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = instantiatedTestClass(classCode, CallToStringExplicitly.CTSEII).invoke("test");
+			assertThat(result).isEqualTo("test:sb:lit:null");
+		}
+
+		@Test
+		void builderWithCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int i = 3; char c = 'c'; boolean z = false; Object nothing = null;" +
+			                                     "      return \"${i}:${c}:${z}:${nothing}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode,
+			                                StringBuilderConcatStrategy.BUILDER,
+			                                CallToStringExplicitly.CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("3:c:false:null");
+		}
+
+		@Test
+		void argumentsOfMethods() {
+			assertThat(interpolationsInArguments()).isEqualTo("1|x 2 q|3");
+		}
+
+		@Test
+		void argumentsOfMethodsWithCallToStringExplicitly() {
+			assertThat(interpolationsInArguments(CallToStringExplicitly.CTSEII)).isEqualTo("1|x 2 q|3");
+		}
+
+		@Test
+		void argumentsOfMethodsWithIndyConcatStrategy() {
+			assertThat(interpolationsInArguments(IndyConcatStrategy.INDY)).isEqualTo("1|x 2 q|3");
+		}
+
+		@Test
+		void argumentsOfMethodsWithStringBuilderConcatStrategy() {
+			assertThat(interpolationsInArguments(StringBuilderConcatStrategy.BUILDER,
+			                                     CallToStringExplicitly.CTSEII)).isEqualTo("1|x 2 q|3");
+		}
+
+		private Object interpolationsInArguments(String... options) {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  static int calls = 0;" +
+			                                     "  static int next(){ return ++calls; }" +
+			                                     "  static String id(String value){ return value; }" +
+			                                     "  public static String test(){ " +
+			                                     "      return id(\"${next()}\") + \"|\" + " +
+			                                     "             id(\"x ${next()} ${id(\\\"q\\\")}\") + \"|\" + " +
+			                                     "             id(\"${id(String.valueOf(next()))}\");" +
+			                                     "  }" +
+			                                     "}";
+
+			return loadedTestClass(classCode, options).invokeStatic("test");
+		}
+	}
+
+
+	@Nested
+	class ConstantFolding {
+
+		@Language("Java") static final String CONSTANTS =
+				"public class Test { " +
+				"  static final String PREFIX = \"p\";" +
+				"  static final int VERSION = 1;" +
+				"  static final char C = 'c';" +
+				"  static final boolean B = true;" +
+				"  public static String test(){ " +
+				"      return \"${PREFIX}-${VERSION}:${3 + 4}:${C}${B}${1.5}${2L}\";" +
+				"  }" +
+				"  public static Boolean interned(){ " +
+				"      return test() == \"p-1:7:ctrue1.52\" && \"${PREFIX}\" == \"p\";" +
+				"  }" +
+				"}";
+
+		@Test
+		void constants() {
+			assertThat(loadedTestClass(CONSTANTS).invokeStatic("test")).isEqualTo("p-1:7:ctrue1.52");
+		}
+
+		@Test
+		void constantsAreInterned() {
+			assertThat(loadedTestClass(CONSTANTS).invokeStatic("interned")).isEqualTo(true);
+		}
+
+		@Test
+		void constantsWithCallToStringExplicitly() {
+			assertThat(loadedTestClass(CONSTANTS, CallToStringExplicitly.CTSEII).invokeStatic("interned")).isEqualTo(true);
+		}
+
+		@Test
+		void constantsWithIndyConcatStrategy() {
+			assertThat(loadedTestClass(CONSTANTS, IndyConcatStrategy.INDY).invokeStatic("interned")).isEqualTo(true);
+		}
+
+		@Test
+		void constantsWithStringBuilderConcatStrategy() {
+			assertThat(loadedTestClass(CONSTANTS, StringBuilderConcatStrategy.BUILDER).invokeStatic("interned")).isEqualTo(true);
+		}
+
+		@Test
+		void constantsAndVariables() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  static final String PREFIX = \"p\";" +
+			                                     "  public static String test(){ " +
+			                                     "      int x = 2;" +
+			                                     "      return \"${PREFIX}-${x}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("p-2");
+		}
+	}
+
+
+	@Nested
+	class GuardLoggerCalls {
+
+		static final String GUARD = "-A" + Options.GUARD_LOGGER_CALLS;
+
+		@Language("Java") static final String LOGGER =
+				"  static int calls = 0;" +
+				"  static int next(){ return ++calls; }" +
+				"  static class Logger {" +
+				"      boolean debug;" +
+				"      StringBuilder out = new StringBuilder();" +
+				"      public boolean isDebugEnabled(){ return debug; }" +
+				"      public void debug(String message){ out.append(message).append(';'); }" +
+				"      public void info(String message){ out.append(message).append(';'); }" +
+				"  }";
+
+		@Test
+		void disabledLevel() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     LOGGER +
+			                                     "  public static String test(){ " +
+			                                     "      Logger log = new Logger();" +
+			                                     "      log.debug(\"first ${next()}\");" +
+			                                     "      log.debug = true;" +
+			                                     "      log.debug(\"second ${next()}\");" +
+			                                     "      return log.out + \"calls=\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, GUARD).invokeStatic("test");
+			assertThat(result).isEqualTo("second 1;calls=1");
+		}
+
+		@Test
+		void receiverWithoutCheckOfLevel() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     LOGGER +
+			                                     "  static final Logger LOG = new Logger();" +
+			                                     "  public static String test(){ " +
+			                                     "      Test.LOG.info(\"info ${next()}\");" +
+			                                     "      return LOG.out + \"calls=\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, GUARD).invokeStatic("test");
+			assertThat(result).isEqualTo("info 1;calls=1");
+		}
+
+		@Test
+		void javaUtilLogging() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     LOGGER +
+			                                     "  final java.util.logging.Logger log = java.util.logging.Logger.getLogger(\"test\");" +
+			                                     "  public String test(){ " +
+			                                     "      log.setLevel(java.util.logging.Level.SEVERE);" +
+			                                     "      log.fine(\"fine ${next()}\");" +
+			                                     "      this.log.severe(\"severe ${next()}\");" +
+			                                     "      return \"calls=\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = instantiatedTestClass(classCode, GUARD).invoke("test");
+			assertThat(result).isEqualTo("calls=1");
+		}
+
+		@Test
+		void withoutOption() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     LOGGER +
+			                                     "  public static String test(){ " +
+			                                     "      Logger log = new Logger();" +
+			                                     "      log.debug(\"first ${next()}\");" +
+			                                     "      return log.out + \"calls=\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("first 1;calls=1");
+		}
+	}
+
+	@Nested
+	class LazyInterpolation {
+
+		static final String VALUE = "  static int calls = 0;" +
+		                            "  static class Value {" +
+		                            "      public String toString(){ calls++; return \"v\"; }" +
+		                            "  }";
+
+		@Test
+		void concatenatedOnceWhenRead() {
+
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.BetterStrings;" +
+			                                     "public class Test { " +
+			                                     VALUE +
+			                                     "  public static String test(){ " +
+			                                     "      CharSequence message = BetterStrings.lazy(\"a ${new Value()} b\");" +
+			                                     "      int before = calls;" +
+			                                     "      String first = message.toString();" +
+			                                     "      String second = message.toString();" +
+			                                     "      return before + \"|\" + first + \"|\" + calls + \"|\" + (first == second);" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("0|a v b|1|true");
+		}
+
+		@Test
+		void valuesAreCapturedInPlace() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int i = 1;" +
+			                                     "      CharSequence message = com.antkorwin.betterstrings.BetterStrings.lazy(\"i=${i}\");" +
+			                                     "      i = 2;" +
+			                                     "      return message + \"|\" + message.length() + \"|\" + i;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("i=1|3|2");
+		}
+
+		@Test
+		void staticImport() {
+
+			@Language("Java") String classCode = "import static com.antkorwin.betterstrings.BetterStrings.*;" +
+			                                     "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      char[] chars = {'o', 'k'};" +
+			                                     "      return lazy(\"${chars}:${1 + 2}:${null}\").get();" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("ok:3:null");
+		}
+
+		@Test
+		void withCallToStringExplicitly() {
+
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.BetterStrings;" +
+			                                     "public class Test { " +
+			                                     VALUE +
+			                                     "  public static String test(){ " +
+			                                     "      CharSequence message = BetterStrings.lazy(\"${new Value()}\");" +
+			                                     "      int before = calls;" +
+			                                     "      String text = message.toString();" +
+			                                     "      return before + \"|\" + text + \"|\" + calls;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode, CallToStringExplicitly.CTSEII).invokeStatic("test");
+			assertThat(result).isEqualTo("0|v|1");
+		}
+
+		@Test
+		void methodWithTheSameName() {
+
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  static String lazy(String message){ return \"own \" + message; }" +
+			                                     "  public static String test(){ " +
+			                                     "      return lazy(\"${1 + 2}\");" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("own 3");
+		}
+	}
+
+	@Nested
+	class ParallelParsing {
+
+		static final String THREADS = "-A" + Options.PARSER_THREADS + "=3";
+
+		/**
+		 * @return the class where the method `test` returns values of expressions `x + first`, `x + first + 1`...
+		 */
+		private String classWithExpressions(int first, int count, String wrongExpression) {
+			StringBuilder classCode = new StringBuilder("public class Test { " +
+			                                            "  public static String test(){ " +
+			                                            "      int x = 1;" +
+			                                            "      StringBuilder result = new StringBuilder();");
+			for (int i = first; i < first + count; i++) {
+				classCode.append("result.append(\"${x + ").append(i).append("},\");");
+			}
+			if (wrongExpression != null) {
+				classCode.append("result.append(\"${").append(wrongExpression).append("}\");");
+			}
+			return classCode.append("      return result.toString();" +
+			                        "  }" +
+			                        "}").toString();
+		}
+
+		@Test
+		void manyExpressions() {
+
+			int count = 3 * ExpressionParser.MIN_EXPRESSIONS_PER_THREAD;
+			String classCode = classWithExpressions(20_000, count, null);
+
+			Object result = loadedTestClass(classCode, THREADS).invokeStatic("test");
+
+			StringBuilder expected = new StringBuilder();
+			for (int i = 20_000; i < 20_000 + count; i++) {
+				expected.append(1 + i).append(',');
+			}
+			assertThat(result).isEqualTo(expected.toString());
+		}
+
+		@Test
+		void wrongExpression() {
+
+			String classCode = classWithExpressions(30_000, 3 * ExpressionParser.MIN_EXPRESSIONS_PER_THREAD, "x +");
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics =
+					new CompileTest().classCode("Test", classCode)
+					                 .processor(new BetterStringsProcessor())
+					                 .options(THREADS)
+					                 .compile()
+					                 .getDiagnostics();
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .filteredOn(m -> m.startsWith("Error while parsing expression in the string literal"))
+			                       .hasSize(1);
+		}
+
+		@Test
+		void wrongNumberOfThreads() {
+
+			@Language("Java") String classCode = "public class Test { }";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics =
+					new CompileTest().classCode("Test", classCode)
+					                 .processor(new BetterStringsProcessor())
+					                 .options("-A" + Options.PARSER_THREADS + "=0")
+					                 .compile()
+					                 .getDiagnostics();
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .contains("Wrong value of the parserThreads option: 0");
+		}
+	}
+
+	@Nested
+	class Metrics {
+
+		@Language("Java") private final String classCode = "public class Test { " +
+		                                                   "  public static String test(){ " +
+		                                                   "      int x = 1;" +
+		                                                   "      String plain = \"plain\";" +
+		                                                   "      String first = \"${x}\";" +
+		                                                   "      String second = \"${x + 2}\";" +
+		                                                   "      String escaped = \"\\\\${x}\";" +
+		                                                   "      return plain + first + second + escaped;" +
+		                                                   "  }" +
+		                                                   "}";
+
+		@Test
+		void report() throws IOException {
+
+			Path report = Files.createTempFile("better-strings-metrics", ".json");
+			BetterStringsProcessor processor = new BetterStringsProcessor();
+
+			Object result = new CompileTest().classCode("Test", classCode)
+			                                 .processor(processor)
+			                                 .options("-A" + Options.METRICS + "=" + report)
+			                                 .compile()
+			                                 .loadClass("Test")
+			                                 .invokeStatic("test");
+
+			assertThat(result).isEqualTo("plain13${x}");
+			ProcessingMetrics metrics = processor.getMetrics();
+			assertThat(metrics.getUnitsScanned()).isEqualTo(1);
+			assertThat(metrics.getLiteralsVisited()).isEqualTo(4);
+			assertThat(metrics.getLiteralsRewritten()).isEqualTo(3);
+			assertThat(metrics.getExpressionsParsed()).isEqualTo(2);
+			assertThat(metrics.getLoweringNanos()).isPositive();
+			// the report is written again after the lowering
+			assertThat(new String(Files.readAllBytes(report), StandardCharsets.UTF_8))
+					.isEqualTo(metrics.toJson(BetterStringsProcessor.SLOWEST_FILES_IN_REPORT))
+					.contains("\"literalsRewritten\": 3,")
+					.contains("Test.java");
+		}
+
+		@Test
+		void summary() throws IOException {
+
+			Path report = Files.createTempFile("better-strings-metrics", ".json");
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics =
+					new CompileTest().classCode("Test", classCode)
+					                 .processor(new BetterStringsProcessor())
+					                 .options("-A" + Options.METRICS + "=" + report)
+					                 .compile()
+					                 .getDiagnostics();
+
+			assertThat(diagnostics).filteredOn(d -> d.getKind() == Diagnostic.Kind.NOTE)
+			                       .extracting(d -> d.getMessage(null))
+			                       .anySatisfy(m -> assertThat(m).startsWith("BetterStrings: 1 of 1 compilation units scanned, " +
+			                                                                 "3 of 4 literals rewritten, " +
+			                                                                 "2 expressions parsed")
+			                                                     .endsWith("the report is in " + report));
+		}
+
+		@Test
+		void withoutPath() {
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics =
+					new CompileTest().classCode("Test", classCode)
+					                 .processor(new BetterStringsProcessor())
+					                 .options("-A" + Options.METRICS + "=")
+					                 .compile()
+					                 .getDiagnostics();
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .contains("The metrics option requires the path of the report");
+		}
+	}
+
+	@Nested
+	class Profiling {
+
+		static final String PROFILE = "-A" + Options.PROFILE_INTERPOLATIONS;
+
+		/**
+		 * @param template the unique text of the literal
+		 * @return the class where the method `test` produces a string by the literal three times,
+		 * the literal is an argument of an overloaded method
+		 */
+		private String classWithLiteral(String template) {
+			return "public class Test { " +
+			       "  private static String id(Object o) { return String.valueOf(o); }" +
+			       "  private static String id(String s) { return s; }" +
+			       "  public static String test(){ " +
+			       "      String result = \"\";" +
+			       "      for (int i = 0; i < 3; i++) {" +
+			       "          result = id(\"" + template + "\");" +
+			       "      }" +
+			       "      return result;" +
+			       "  }" +
+			       "}";
+		}
+
+		private List<InterpolationSite> sites(String template) {
+			return InterpolationProfiler.top(Integer.MAX_VALUE)
+			                            .stream()
+			                            .filter(site -> site.getTemplate().equals(template))
+			                            .collect(Collectors.toList());
+		}
+
+		@Test
+		void countsAndLengths() {
+
+			String template = "profiled ${10 + 20}";
+			LoadedClass testClass = loadedTestClass(classWithLiteral(template), PROFILE);
+
+			InterpolationProfiler.start();
+			Object result;
+			try {
+				result = testClass.invokeStatic("test");
+			} finally {
+				InterpolationProfiler.stop();
+			}
+
+			assertThat(result).isEqualTo("profiled 30");
+			assertThat(sites(template)).hasSize(1)
+			                           .allSatisfy(site -> {
+				                           assertThat(site.getId()).isEqualTo("Test.java:1:250");
+				                           assertThat(site.getCount()).isEqualTo(3);
+				                           assertThat(site.getLength()).isEqualTo(3 * "profiled 30".length());
+			                           });
+		}
+
+		@Test
+		void notRecording() {
+
+			String template = "not recorded ${10 + 20}";
+
+			Object result = loadedTestClass(classWithLiteral(template), PROFILE).invokeStatic("test");
+
+			assertThat(result).isEqualTo("not recorded 30");
+			assertThat(sites(template)).isEmpty();
+		}
+
+		@Test
+		void withoutOption() {
+
+			String template = "not profiled ${10 + 20}";
+			LoadedClass testClass = loadedTestClass(classWithLiteral(template));
+
+			InterpolationProfiler.start();
+			Object result;
+			try {
+				result = testClass.invokeStatic("test");
+			} finally {
+				InterpolationProfiler.stop();
+			}
+
+			assertThat(result).isEqualTo("not profiled 30");
+			assertThat(sites(template)).isEmpty();
+		}
+	}
+
+	@Nested
+	class FormatSpecifiers {
+
+		@Language("Java") String classCode = "import java.math.BigDecimal;" +
+		                                     "public class Test { " +
+		                                     "  public static String test(){ " +
+		                                     "      double price = 1234.005;" +
+		                                     "      int id = 42;" +
+		                                     "      byte b = -1;" +
+		                                     "      BigDecimal amount = new BigDecimal(\"-1.255\");" +
+		                                     "      return \"${price:%,.2f} ${id:%08d} ${id:%-4d}| ${b:%#X} ${amount:%.2f} ${null:%5s} ${\\\"text\\\":%.2S}\";" +
+		                                     "  }" +
+		                                     "}";
+
+		@Test
+		void formattedExpressions() {
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+			assertThat(result).isEqualTo("1,234.01 00000042 42  | 0XFF -1.26  null TE");
+		}
+
+		@Test
+		void concatStrategies() {
+			for (String strategy : new String[]{"indy", "builder"}) {
+				Object result = loadedTestClass(classCode, "-A" + Options.CONCAT_STRATEGY + "=" + strategy)
+						.invokeStatic("test");
+				assertThat(result).as(strategy).isEqualTo("1,234.01 00000042 42  | 0XFF -1.26  null TE");
+			}
+		}
+
+		@Test
+		void modulo() {
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int a = 17;" +
+			                                     "      int n = 5;" +
+			                                     "      int i = 255;" +
+			                                     "      int x = 7;" +
+			                                     "      int d = 100;" +
+			                                     "      float f = 10;" +
+			                                     "      return \"${a%n} ${a % n} ${a%3} ${i%x} ${i%d} ${i%f} ${i%.5f} ${i:%x}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo("2 2 2 3 55 5.0 0.0 ff");
+		}
+
+		@Test
+		void wrongFormat() {
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      int id = 42;" +
+			                                     "      return \"${id:%.2d} ${id:%-+08x}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactly("Wrong format `%.2d`, the precision isn't allowed with `d`",
+			                                        "Wrong format `%-+08x`, the flag `+` isn't allowed with `x`");
+		}
+
+		@Test
+		void wrongTypeOfValue() {
+			@Language("Java") String classCode = "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      char c = 'a';" +
+			                                     "      boolean flag = true;" +
+			                                     "      Object number = 1L;" +
+			                                     "      Integer boxed = 2;" +
+			                                     "      return \"${\\\"abc\\\":%d} ${c:%x} ${flag:%.2f} ${number:%d} ${boxed:%x} ${c:%s}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactly("Wrong format `%d`, the conversion `d` isn't applicable to java.lang.String",
+			                                        "Wrong format `%x`, the conversion `x` isn't applicable to char",
+			                                        "Wrong format `%.2f`, the conversion `f` isn't applicable to boolean");
+		}
+
+		@Test
+		void formatInLazyString() {
+			@Language("Java") String classCode = "import static com.antkorwin.betterstrings.BetterStrings.lazy;" +
+			                                     "public class Test { " +
+			                                     "  public static Object test(){ " +
+			                                     "      int id = 42;" +
+			                                     "      return lazy(\"${id:%08d}\");" +
+			                                     "  }" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactly("Format specifiers aren't supported in lazy strings, " +
+			                                        "the formatting isn't deferred");
+		}
+	}
+
+	@Nested
+	class AppendTo {
+
+		@Test
+		void appendToStringBuilder() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.BetterStrings;" +
+			                                     "public class Test { " +
+			                                     "  static int targets = 0;" +
+			                                     "  static StringBuilder target() { targets++; return new StringBuilder(\">\"); }" +
+			                                     "  public static String test(){ " +
+			                                     "      int id = 42;" +
+			                                     "      double price = 2.5;" +
+			                                     "      char[] chars = {'o', 'k'};" +
+			                                     "      StringBuilder out = BetterStrings.appendTo(target(), \"${id}:${price:%.2f}:${chars}:${null}:${id > 0}\");" +
+			                                     "      return out + \" targets=\" + targets;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo(">42:2.50:ok:null:true targets=1");
+		}
+
+		@Test
+		void appendToWriter() {
+			@Language("Java") String classCode = "import static com.antkorwin.betterstrings.BetterStrings.appendTo;" +
+			                                     "import java.io.*;" +
+			                                     "public class Test { " +
+			                                     "  public static String test() throws IOException { " +
+			                                     "      StringWriter out = new StringWriter();" +
+			                                     "      for (int i = 0; i < 3; i++) {" +
+			                                     "          appendTo(out, \"${i};${\\\"line\\\" + i}\\n\");" +
+			                                     "      }" +
+			                                     "      return appendTo(out, \"end\").toString();" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo("0;line0\n1;line1\n2;line2\nend");
+		}
+
+		@Test
+		void appendToInStrategies() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.BetterStrings;" +
+			                                     "public class Test { " +
+			                                     "  public static String test(){ " +
+			                                     "      long id = 7;" +
+			                                     "      String name = \"x\";" +
+			                                     "      return BetterStrings.appendTo(new StringBuilder(), \"${id}-${name}\") + \"|${id}-${name}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			for (String strategy : new String[]{"valueOf", "indy", "builder"}) {
+				Object result = loadedTestClass(classCode, "-A" + Options.CONCAT_STRATEGY + "=" + strategy)
+						.invokeStatic("test");
+				assertThat(result).as(strategy).isEqualTo("7-x|7-x");
+			}
+		}
+	}
+
+	@Nested
+	class Utf8 {
+
+		@Test
+		void utf8() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.BetterStrings;" +
+			                                     "import java.nio.charset.StandardCharsets;" +
+			                                     "public class Test { " +
+			                                     "  public static boolean test(){ " +
+			                                     "      int id = -42;" +
+			                                     "      long count = Long.MAX_VALUE;" +
+			                                     "      String name = \"\\u00e9\\uD83D\\uDE00\";" +
+			                                     "      double rate = 0.125;" +
+			                                     "      byte[] bytes = BetterStrings.utf8(\"\\u20ac${id}:${count}:${name}:${rate:%.2f}:${null}\\n\");" +
+			                                     "      String expected = \"\\u20ac\" + id + \":\" + count + \":\" + name + \":0.13:null\\n\";" +
+			                                     "      return java.util.Arrays.equals(bytes, expected.getBytes(StandardCharsets.UTF_8));" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo(true);
+		}
+
+		@Test
+		void writeUtf8() {
+			@Language("Java") String classCode = "import static com.antkorwin.betterstrings.BetterStrings.writeUtf8;" +
+			                                     "import java.nio.ByteBuffer;" +
+			                                     "import java.nio.charset.StandardCharsets;" +
+			                                     "public class Test { " +
+			                                     "  static int buffers = 0;" +
+			                                     "  static ByteBuffer buffer = ByteBuffer.allocate(64);" +
+			                                     "  static ByteBuffer buffer() { buffers++; return buffer; }" +
+			                                     "  public static String test(){ " +
+			                                     "      for (int i = 0; i < 3; i++) {" +
+			                                     "          writeUtf8(buffer(), \"k${i}:${i * 10}|c\\n\");" +
+			                                     "      }" +
+			                                     "      ByteBuffer result = writeUtf8(buffer, \"end\");" +
+			                                     "      return new String(result.array(), 0, result.position(), StandardCharsets.UTF_8) + buffers;" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo("k0:0|c\nk1:10|c\nk2:20|c\nend3");
+		}
+	}
+
+	@Nested
+	class Scope {
+
+		@Language("Java") private final String classCode = "public class Test { " +
+		                                                   "  public static String test(){ " +
+		                                                   "      int x = 1;" +
+		                                                   "      return \"x=${x}\";" +
+		                                                   "  }" +
+		                                                   "}";
+
+		@Test
+		void includedType() {
+			Object result = loadedTestClass(classCode, "-A" + Options.INCLUDE + "=Other,T*")
+					.invokeStatic("test");
+
+			assertThat(result).isEqualTo("x=1");
+		}
+
+		@Test
+		void notIncludedType() {
+			Object result = loadedTestClass(classCode, "-A" + Options.INCLUDE + "=com.acme.**")
+					.invokeStatic("test");
+
+			assertThat(result).isEqualTo("x=${x}");
+		}
+
+		@Test
+		void excludedType() {
+			Object result = loadedTestClass(classCode, "-A" + Options.EXCLUDE + "=Test")
+					.invokeStatic("test");
+
+			assertThat(result).isEqualTo("x=${x}");
+		}
+
+		@Test
+		void enabledOnly() {
+			@Language("Java") String enabledCode = "@com.antkorwin.betterstrings.EnabledStringInterpolation " +
+			                                       classCode;
+
+			Object notEnabled = loadedTestClass(classCode, "-A" + Options.ENABLED_ONLY).invokeStatic("test");
+			Object enabled = loadedTestClass(enabledCode, "-A" + Options.ENABLED_ONLY).invokeStatic("test");
+
+			assertThat(notEnabled).isEqualTo("x=${x}");
+			assertThat(enabled).isEqualTo("x=1");
+		}
+	}
+
+	@Nested
+	class GeneratedToString {
+
+		@Test
+		void template() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.FastToString;" +
+			                                     "public class Test { " +
+			                                     "  @FastToString(\"Order(id=${id}, qty=${qty}, price=${price:%.2f}, ${id > 0})\")" +
+			                                     "  static class Order {" +
+			                                     "      long id = 42;" +
+			                                     "      int qty = 3;" +
+			                                     "      double price = 9.5;" +
+			                                     "  }" +
+			                                     "  @FastToString(value = \"plain\")" +
+			                                     "  static class Plain {}" +
+			                                     "  public static String test(){ " +
+			                                     "      return new Order() + \"; \" + new Plain();" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = loadedTestClass(classCode).invokeStatic("test");
+
+			assertThat(result).isEqualTo("Order(id=42, qty=3, price=9.50, true); plain");
+		}
+
+		@Test
+		void defaultTemplate() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.*;" +
+			                                     "@FastToString " +
+			                                     "public class Test { " +
+			                                     "  static int count = 1;" +
+			                                     "  char c = 'x';" +
+			                                     "  boolean flag = true;" +
+			                                     "  String name = null;" +
+			                                     "  public static String test(){ " +
+			                                     "      @FastToString class Local { byte b = 7; }" +
+			                                     "      return new Test() + \", \" + new Local();" +
+			                                     "  }" +
+			                                     "}";
+
+			for (String strategy : new String[]{IndyConcatStrategy.INDY,
+			                                    StringBuilderConcatStrategy.BUILDER,
+			                                    CallToStringExplicitly.CTSEII}) {
+				Object result = loadedTestClass(classCode, strategy).invokeStatic("test");
+
+				assertThat(result).as(strategy).isEqualTo("Test(c=x, flag=true, name=null), Local(b=7)");
+			}
+		}
+
+		@Test
+		void wrongDeclarations() {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.FastToString;" +
+			                                     "public class Test { " +
+			                                     "  static final String TEMPLATE = \"template\";" +
+			                                     "  @FastToString interface Named {}" +
+			                                     "  @FastToString static class Declared {" +
+			                                     "      public String toString() { return \"\"; }" +
+			                                     "  }" +
+			                                     "  @FastToString(Test.TEMPLATE) static class Constant {}" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactlyInAnyOrder(
+					                       "@FastToString requires a class",
+					                       "The class with @FastToString already declares toString()",
+					                       "The template of @FastToString should be a string literal");
+		}
+	}
+
+	@Nested
+	class PluginMode {
+
+		@Language("Java") private final String classCode = "import com.antkorwin.betterstrings.*;" +
+		                                                   "public class Test { " +
+		                                                   "  @DisabledStringInterpolation" +
+		                                                   "  static String disabled() { return \"${1}\"; }" +
+		                                                   "  public static String test(){ " +
+		                                                   "      int x = 1;" +
+		                                                   "      long y = 2;" +
+		                                                   "      return \"x=${x}, sum=${x + y}, \\\\${x}, \" + disabled() + \", \" +" +
+		                                                   "             BetterStrings.lazy(\"${y}\");" +
+		                                                   "  }" +
+		                                                   "}";
+
+		/**
+		 * @return the result of the static method `test` of the class compiled by the system compiler,
+		 * the in-memory compilation of {@link CompileTest} doesn't load plugins
+		 */
+		private Object invokeTest(boolean processor, String... options) throws Exception {
+			Path output = Files.createTempDirectory("better-strings-output");
+			Path source = output.resolve("Test.java");
+			Files.write(source, classCode.getBytes(StandardCharsets.UTF_8));
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+			try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+				List<String> arguments = new ArrayList<>(Arrays.asList("-d", output.toString(),
+				                                                       "-classpath", System.getProperty("java.class.path")));
+				arguments.addAll(Arrays.asList(options));
+				JavaCompiler.CompilationTask task =
+						compiler.getTask(null, fileManager, diagnostics, arguments, null,
+						                 fileManager.getJavaFileObjects(source.toFile()));
+				if (processor) {
+					task.setProcessors(Collections.singletonList(new BetterStringsProcessor()));
+				}
+				assertThat(task.call()).as(diagnostics.getDiagnostics().toString()).isTrue();
+			}
+			try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+			                                                     getClass().getClassLoader())) {
+				return classLoader.loadClass("Test").getMethod("test").invoke(null);
+			}
+		}
+
+		@Test
+		void withoutAnnotationProcessing() throws Exception {
+			Object result = invokeTest(false, "-proc:none", "-Xplugin:" + BetterStringsPlugin.NAME);
+
+			assertThat(result).isEqualTo("x=1, sum=3, ${x}, ${1}, 2");
+		}
+
+		@Test
+		void optionsOfPlugin() throws Exception {
+			for (String strategy : new String[]{"valueOf", "indy", "builder"}) {
+				Object result = invokeTest(false,
+				                           "-proc:none",
+				                           "-Xplugin:" + BetterStringsPlugin.NAME + " " +
+				                           Options.CONCAT_STRATEGY + "=" + strategy,
+				                           "-A" + Options.EXCLUDE + "=Other");
+
+				assertThat(result).as(strategy).isEqualTo("x=1, sum=3, ${x}, ${1}, 2");
+			}
+		}
+
+		@Test
+		void withProcessor() throws Exception {
+			Object result = invokeTest(true, "-Xplugin:" + BetterStringsPlugin.NAME);
+
+			assertThat(result).isEqualTo("x=1, sum=3, ${x}, ${1}, 2");
+		}
+	}
+
+	@Nested
+	class Templates {
+
+		/**
+		 * @return the option with the temporary directory of the template `templates/test.txt`
+		 */
+		private String templatesPath(String template) throws IOException {
+			Path directory = Files.createTempDirectory("better-strings-templates");
+			Path file = directory.resolve("templates").resolve("test.txt");
+			Files.createDirectories(file.getParent());
+			Files.write(file, template.getBytes(StandardCharsets.UTF_8));
+			return "-A" + Options.TEMPLATES_PATH + "=" + directory;
+		}
+
+		/**
+		 * The compilation in a temporary directory, the in-memory compilation
+		 * of {@link CompileTest} doesn't read sources generated by processors.
+		 *
+		 * @return errors of the compilation
+		 */
+		private List<Diagnostic<? extends JavaFileObject>> compile(Path output,
+		                                                           @Language("Java") String classCode,
+		                                                           String... options) throws IOException {
+			Path source = output.resolve("Test.java");
+			Files.write(source, classCode.getBytes(StandardCharsets.UTF_8));
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+			try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+				List<String> arguments = new ArrayList<>(Arrays.asList("-d", output.toString(),
+				                                                       "-s", output.toString(),
+				                                                       "-classpath", System.getProperty("java.class.path")));
+				arguments.addAll(Arrays.asList(options));
+				JavaCompiler.CompilationTask task =
+						compiler.getTask(null, fileManager, diagnostics, arguments, null,
+						                 fileManager.getJavaFileObjects(source.toFile()));
+				task.setProcessors(Collections.singletonList(new BetterStringsProcessor()));
+				task.call();
+			}
+			return diagnostics.getDiagnostics()
+			                  .stream()
+			                  .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+			                  .collect(Collectors.toList());
+		}
+
+		private List<Diagnostic<? extends JavaFileObject>> compilationErrors(@Language("Java") String classCode,
+		                                                                     String... options) throws IOException {
+			return compile(Files.createTempDirectory("better-strings-output"), classCode, options);
+		}
+
+		/**
+		 * @return the result of the static method `test` of the compiled class
+		 */
+		private Object invokeTest(@Language("Java") String classCode, String... options) throws Exception {
+			Path output = Files.createTempDirectory("better-strings-output");
+			assertThat(compile(output, classCode, options)).isEmpty();
+			try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+			                                                     getClass().getClassLoader())) {
+				return classLoader.loadClass("Test").getMethod("test").invoke(null);
+			}
+		}
+
+		@Test
+		void interfaceMethod() throws Exception {
+			@Language("Java") String classCode = "import java.util.Arrays;" +
+			                                     "import com.antkorwin.betterstrings.InterpolatedTemplate;" +
+			                                     "public interface Test { " +
+			                                     "  String TITLE = \"Dear\";" +
+			                                     "  @InterpolatedTemplate(\"templates/test.txt\")" +
+			                                     "  String letter(String name, int... numbers);" +
+			                                     "  static String test(){ " +
+			                                     "      return new TestImpl().letter(\"Bob\", 1, 2);" +
+			                                     "  }" +
+			                                     "}";
+			String template = "${TITLE} \"${name}\",\n\tyour numbers: ${Arrays.toString(numbers)}\n" +
+			                  "\\${escaped} C:\\dir \u00e9\n";
+
+			Object result = invokeTest(classCode, templatesPath(template));
+
+			assertThat(result).isEqualTo("Dear \"Bob\",\n\tyour numbers: [1, 2]\n${escaped} C:\\dir \u00e9\n");
+		}
+
+		@Test
+		void abstractClassMethod() throws Exception {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.InterpolatedTemplate;" +
+			                                     "public abstract class Test { " +
+			                                     "  protected final int base = 40;" +
+			                                     "  @InterpolatedTemplate(\"templates/test.txt\")" +
+			                                     "  protected abstract Object answer(int delta) throws java.io.IOException;" +
+			                                     "  public static Object test() throws Exception { " +
+			                                     "      return new TestImpl().answer(2);" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = invokeTest(classCode, templatesPath("answer is ${base + delta}"));
+
+			assertThat(result).isEqualTo("answer is 42");
+		}
+
+		@Test
+		void pluginModeWithScope() throws Exception {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.InterpolatedTemplate;" +
+			                                     "public abstract class Test { " +
+			                                     "  protected final int base = 40;" +
+			                                     "  @InterpolatedTemplate(\"templates/test.txt\")" +
+			                                     "  protected abstract String answer(int delta);" +
+			                                     "  public static Object test() { " +
+			                                     "      return new TestImpl().answer(2) + \", ${base}\";" +
+			                                     "  }" +
+			                                     "}";
+
+			Object result = invokeTest(classCode,
+			                           templatesPath("answer is ${base + delta}"),
+			                           "-Xplugin:" + BetterStringsPlugin.NAME,
+			                           "-A" + Options.ENABLED_ONLY);
+
+			assertThat(result).isEqualTo("answer is 42, ${base}");
+		}
+
+		@Test
+		void templateNotFound() throws IOException {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.InterpolatedTemplate;" +
+			                                     "public interface Test { " +
+			                                     "  @InterpolatedTemplate(\"templates/missing.txt\")" +
+			                                     "  String letter();" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode);
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactly("The template templates/missing.txt isn't found " +
+			                                        "in the templates path, the source path and the class path");
+		}
+
+		@Test
+		void wrongTemplates() throws IOException {
+			@Language("Java") String classCode = "import com.antkorwin.betterstrings.InterpolatedTemplate;" +
+			                                     "public abstract class Test { " +
+			                                     "  @InterpolatedTemplate(\"templates/test.txt\")" +
+			                                     "  abstract String letter();" +
+			                                     "  @InterpolatedTemplate(\"templates/test.txt\")" +
+			                                     "  abstract int number();" +
+			                                     "  abstract String plain();" +
+			                                     "}";
+
+			List<Diagnostic<? extends JavaFileObject>> diagnostics = compilationErrors(classCode,
+			                                                                           templatesPath("${unclosed"));
+
+			assertThat(diagnostics).extracting(d -> d.getMessage(null))
+			                       .containsExactlyInAnyOrder(
+					                       "Wrong template templates/test.txt: Not found ending bracket `}` " +
+					                       "of a variable declaration in string value: ${unclosed",
+					                       "The method with a template should return String",
+					                       "The abstract method plain of a type with templates " +
+					                       "should be annotated by @InterpolatedTemplate");
+		}
 	}
-}
\ No newline at end of file
+}
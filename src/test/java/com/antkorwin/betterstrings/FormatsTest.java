@@ -0,0 +1,118 @@
+package com.antkorwin.betterstrings;
+
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.IllegalFormatConversionException;
+import java.util.Locale;
+import java.util.Random;
+
+import com.antkorwin.betterstrings.tokenizer.FormatSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FormatsTest {
+
+    private static final String[] FIXED_FORMATS = {"f", ".0f", ".2f", ".3f", "10.2f", "010.2f", "-10.1f", "+.2f", ",.2f", "+,015.4f"};
+    private static final String[] INTEGER_FORMATS = {"d", "08d", "-8d", "+d", ",d", "+,012d", "x", "X", "08x", "#x", "#010X", "-6x"};
+
+    @Test
+    void fixedAsStringFormat() {
+        // Arrange
+        Random random = new Random(42);
+        double[] values = {0.0, -0.0, 0.5, 1.5, 2.5, -2.5, 0.005, 0.015, 1.005, 1234.005, 9.995, 99.9999, 999999.9,
+                           0.000123456, 1.0E-10, 123456789.125, 1.0E20, 1.7976931348623157E308, Double.MIN_VALUE,
+                           Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        // Act & Assert
+        for (String format : FIXED_FORMATS) {
+            for (double value : values) {
+                assertFormat(format, value);
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertFormat(format, (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 6));
+                assertFormat(format, random.nextInt(100_000) / 1000.0);
+            }
+        }
+    }
+
+    @Test
+    void fixedOfBoxedNumbers() {
+        for (String format : FIXED_FORMATS) {
+            assertFormat(format, new BigDecimal("-1234.5650"));
+            assertFormat(format, new BigDecimal("0.0005"));
+            assertFormat(format, new BigDecimal("-0.0001"));
+            assertFormat(format, 2.675f);
+        }
+        assertThat(Formats.fixed(null, 2, 6, 0)).isEqualTo("  null");
+        assertThat(Formats.fixed((Object) 10, 2, -1, 0)).isEqualTo("10.00");
+        assertThat(Formats.fixed(new BigInteger("-12345"), 1, -1, Formats.GROUPING)).isEqualTo("-12,345.0");
+    }
+
+    @Test
+    void integersAsStringFormat() {
+        // Arrange
+        long[] values = {0, 1, -1, 42, -42, 255, 1234567, -1234567, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                         Long.MAX_VALUE, Long.MIN_VALUE};
+        // Act & Assert
+        for (String format : INTEGER_FORMATS) {
+            for (long value : values) {
+                assertFormat(format, value);
+                assertFormat(format, (int) value);
+                assertFormat(format, (short) value);
+                assertFormat(format, (byte) value);
+            }
+            assertFormat(format, new BigInteger("-123456789012345678901234567890"));
+            if (!format.contains("0")) {
+                // String.format fails on the null with zero-padding
+                assertFormat(format, null);
+            }
+        }
+        assertThat(Formats.decimal(null, 6, Formats.ZERO_PAD)).isEqualTo("  null");
+    }
+
+    @Test
+    void stringsAsStringFormat() {
+        for (String format : new String[]{"s", "S", "10s", "-10s", ".3s", "8.2S"}) {
+            for (Object value : new Object[]{"", "text", "long text", 42, null}) {
+                assertFormat(format, value);
+            }
+        }
+    }
+
+    @Test
+    void wrongTypeOfValue() {
+        Assertions.assertThrows(IllegalFormatConversionException.class, () -> Formats.decimal((Object) 1.5, -1, 0));
+        Assertions.assertThrows(IllegalFormatConversionException.class, () -> Formats.hex("ff", -1, 0));
+        Assertions.assertThrows(IllegalFormatConversionException.class, () -> Formats.fixed("1.5", 2, -1, 0));
+    }
+
+    /**
+     * Calls the method of {@link Formats} like the generated code does
+     * and compares the result with {@link String#format}.
+     */
+    private void assertFormat(String format, Object value) {
+        FormatSpec spec = FormatSpec.parse(format);
+        String expected = String.format(Locale.ROOT, "%" + format, value);
+        String actual;
+        switch (spec.getMethod()) {
+            case "decimal":
+                actual = value instanceof Number && !(value instanceof BigInteger)
+                         ? Formats.decimal(((Number) value).longValue(), spec.getWidth(), spec.getFlags())
+                         : Formats.decimal(value, spec.getWidth(), spec.getFlags());
+                break;
+            case "hex":
+                actual = Formats.hex(value, spec.getWidth(), spec.getFlags());
+                break;
+            case "fixed":
+                actual = value instanceof Double
+                         ? Formats.fixed((double) (Double) value, spec.getPrecision(), spec.getWidth(), spec.getFlags())
+                         : Formats.fixed(value, spec.getPrecision(), spec.getWidth(), spec.getFlags());
+                break;
+            default:
+                actual = Formats.string(value, spec.getPrecision(), spec.getWidth(), spec.getFlags());
+        }
+        assertThat(actual).as("%%%s of %s", format, value).isEqualTo(expected);
+    }
+}
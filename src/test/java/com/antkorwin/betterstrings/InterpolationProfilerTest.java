@@ -0,0 +1,71 @@
+package com.antkorwin.betterstrings;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InterpolationProfilerTest {
+
+    @BeforeEach
+    @AfterEach
+    void resetProfiler() {
+        InterpolationProfiler.stop();
+        InterpolationProfiler.reset();
+    }
+
+    @Test
+    void top() {
+        // Arrange
+        InterpolationProfiler.start();
+        // Act
+        String value = InterpolationProfiler.record("top/A.java:1:1", "a ${x}", "a 1");
+        InterpolationProfiler.record("top/B.java:2:1", "b ${x}", "b 12345");
+        InterpolationProfiler.record("top/A.java:1:1", "a ${x}", "a 2");
+        InterpolationProfiler.record("top/C.java:3:1", "c ${x}", "c");
+        // Assert
+        assertThat(value).isEqualTo("a 1");
+        assertThat(InterpolationProfiler.top(2)).extracting(InterpolationSite::toString)
+                                                .containsExactly("top/B.java:2:1 b ${x} count=1 length=7",
+                                                                 "top/A.java:1:1 a ${x} count=2 length=6");
+    }
+
+    @Test
+    void notRecording() {
+        // Act
+        String value = InterpolationProfiler.record("stopped/A.java:1:1", "a ${x}", "a 1");
+        // Assert
+        assertThat(value).isEqualTo("a 1");
+        assertThat(InterpolationProfiler.isRecording()).isFalse();
+        assertThat(InterpolationProfiler.top(Integer.MAX_VALUE)).extracting(InterpolationSite::getId)
+                                                                .doesNotContain("stopped/A.java:1:1");
+    }
+
+    @Test
+    void dump() {
+        // Arrange
+        InterpolationProfiler.start();
+        InterpolationProfiler.record("dump/A.java:1:1", "a ${x}", "a 1");
+        InterpolationProfiler.record("dump/A.java:1:1", "a ${x}", "a 12");
+        // Act
+        String dump = InterpolationProfiler.dump(1);
+        // Assert
+        assertThat(dump.split(System.lineSeparator()))
+                .containsExactly("       count         length  average  literal",
+                                 "           2              7        3  dump/A.java:1:1 \"a ${x}\"");
+    }
+
+    @Test
+    void reset() {
+        // Arrange
+        InterpolationProfiler.start();
+        InterpolationProfiler.record("reset/A.java:1:1", "a ${x}", "a 1");
+        // Act
+        InterpolationProfiler.reset();
+        // Assert
+        assertThat(InterpolationProfiler.top(Integer.MAX_VALUE)).extracting(InterpolationSite::getId)
+                                                                .doesNotContain("reset/A.java:1:1");
+    }
+}
@@ -0,0 +1,62 @@
+package com.antkorwin.betterstrings;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InterpolationScopeTest {
+
+    @Test
+    void everythingWithoutOptions() {
+        // Act
+        InterpolationScope scope = InterpolationScope.from(null, null, false);
+        // Assert
+        assertThat(scope.isEverything()).isTrue();
+        assertThat(scope.includes("com.acme.Main")).isTrue();
+    }
+
+    @Test
+    void includeGlobs() {
+        // Act
+        InterpolationScope scope = InterpolationScope.from("com.acme.billing.**, com.acme.api.*,Main", null, false);
+        // Assert
+        assertThat(scope.isEverything()).isFalse();
+        assertThat(scope.includes("com.acme.billing.Invoice")).isTrue();
+        assertThat(scope.includes("com.acme.billing.tax.Rate")).isTrue();
+        assertThat(scope.includes("com.acme.api.Client")).isTrue();
+        assertThat(scope.includes("com.acme.api.v2.Client")).isFalse();
+        assertThat(scope.includes("com.acme.billingx.Invoice")).isFalse();
+        assertThat(scope.includes("Main")).isTrue();
+        assertThat(scope.includes("com.acme.Main")).isFalse();
+    }
+
+    @Test
+    void excludeWinsOverInclude() {
+        // Act
+        InterpolationScope scope = InterpolationScope.from("com.acme.**", "**.generated.**,com.acme.*Test", false);
+        // Assert
+        assertThat(scope.includes("com.acme.Service")).isTrue();
+        assertThat(scope.includes("com.acme.ServiceTest")).isFalse();
+        assertThat(scope.includes("com.acme.generated.Dto")).isFalse();
+        assertThat(scope.includes("org.other.Service")).isFalse();
+    }
+
+    @Test
+    void enabledOnly() {
+        // Act
+        InterpolationScope scope = InterpolationScope.from(null, null, true);
+        // Assert
+        assertThat(scope.isEverything()).isFalse();
+        assertThat(scope.isEnabledOnly()).isTrue();
+        assertThat(scope.includes("com.acme.Main")).isTrue();
+    }
+
+    @Test
+    void wrongPattern() {
+        assertThatThrownBy(() -> InterpolationScope.from(null, "com.acme.[a-z]", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Wrong pattern `com.acme.[a-z]` of the " + Options.EXCLUDE + " option");
+    }
+}
@@ -0,0 +1,31 @@
+package com.antkorwin.betterstrings;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyStringTest {
+
+    @Test
+    void concat() {
+        // Arrange
+        LazyString lazyString = new LazyString(new Object[]{"a=", 1, ", b=", null, ", c=", new char[]{'o', 'k'}});
+        // Act
+        String result = lazyString.toString();
+        // Assert
+        assertThat(result).isEqualTo("a=1, b=null, c=ok");
+        assertThat(lazyString.get()).isSameAs(result);
+        assertThat(lazyString.length()).isEqualTo(result.length());
+        assertThat(lazyString.charAt(2)).isEqualTo('1');
+        assertThat(lazyString.subSequence(0, 3).toString()).isEqualTo("a=1");
+    }
+
+    @Test
+    void lazyWithoutProcessing() {
+        // Act
+        LazyString lazyString = BetterStrings.lazy("text");
+        // Assert
+        assertThat(lazyString.toString()).isEqualTo("text");
+    }
+}
@@ -0,0 +1,62 @@
+package com.antkorwin.betterstrings;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessingMetricsTest {
+
+    @Test
+    void slowestFiles() {
+        // Arrange
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        metrics.addTranslationNanos("A.java", 10);
+        metrics.addTranslationNanos("B.java", 30);
+        metrics.addTranslationNanos("C.java", 20);
+        metrics.addLoweringNanos("A.java", 25);
+        // Act
+        String json = metrics.toJson(2);
+        // Assert
+        assertThat(metrics.getSlowestFiles(2)).extracting(e -> e.getKey() + "=" + e.getValue())
+                                             .containsExactly("A.java=35", "B.java=30");
+        assertThat(json).contains("    {\"file\": \"A.java\", \"nanos\": 35},\n" +
+                                  "    {\"file\": \"B.java\", \"nanos\": 30}\n" +
+                                  "  ]")
+                        .doesNotContain("C.java")
+                        .contains("\"total\": 85");
+    }
+
+    @Test
+    void translatorTimeWithoutTokenizerAndParser() {
+        // Arrange
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        // Act
+        metrics.addTranslationNanos("A.java", 100);
+        metrics.addTokenizerNanos(30);
+        metrics.addParserNanos(50);
+        // Assert
+        assertThat(metrics.getTranslatorNanos()).isEqualTo(20);
+        assertThat(metrics.getTotalNanos()).isEqualTo(100);
+    }
+
+    @Test
+    void quoteFileNames() {
+        // Arrange
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        metrics.addTranslationNanos("C:\\src\\\"Test\".java", 1);
+        // Act
+        String json = metrics.toJson(10);
+        // Assert
+        assertThat(json).contains("\"file\": \"C:\\\\src\\\\\\\"Test\\\".java\"");
+    }
+
+    @Test
+    void emptyReport() {
+        // Act
+        String json = new ProcessingMetrics().toJson(10);
+        // Assert
+        assertThat(json).contains("\"unitsScanned\": 0,")
+                        .endsWith("  \"slowestFiles\": []\n}\n");
+    }
+}
@@ -0,0 +1,114 @@
+package com.antkorwin.betterstrings;
+
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Utf8BuilderTest {
+
+    @Test
+    void appendValues() {
+        // Arrange
+        String name = "Пётр 😀";
+        // Act
+        byte[] result = Utf8Builder.of(4)
+                                   .encoded("a=").append(-1234567890123L)
+                                   .encoded(",b=").append(Long.MIN_VALUE)
+                                   .encoded(",c=").append(0)
+                                   .encoded(",d=").append(name)
+                                   .encoded(",e=").append((Object) null)
+                                   .encoded(",f=").append((Object) new char[]{'o', 'é'})
+                                   .encoded(",g=").append('€').append(true).append(2.5)
+                                   .toBytes();
+        // Assert
+        String expected = "a=-1234567890123,b=" + Long.MIN_VALUE + ",c=0,d=" + name +
+                          ",e=null,f=oé,g=€true2.5";
+        assertThat(result).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encodeLikeString() {
+        // Arrange
+        String text = "ascii ÿ ࠀ ￿ 𐀀 lone \uD800 and \uDC00 end \uD83D";
+        // Act
+        byte[] result = Utf8Builder.of(0).append(text).append((CharSequence) new StringBuilder(text)).toBytes();
+        // Assert
+        assertThat(result).isEqualTo((text + text).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encodedTextIsCopied() {
+        // Arrange
+        byte[] bytes = "é€".getBytes(StandardCharsets.UTF_8);
+        // Act
+        byte[] result = Utf8Builder.of(0).encoded(new String(bytes, StandardCharsets.ISO_8859_1)).toBytes();
+        // Assert
+        assertThat(result).isEqualTo(bytes);
+    }
+
+    @Test
+    void writeToHeapBuffer() {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.put((byte) '>');
+        ByteBuffer slice = buffer.slice();
+        // Act
+        ByteBuffer result = Utf8Builder.to(slice).encoded("id=").append(42).target();
+        // Assert
+        assertThat(result).isSameAs(slice);
+        assertThat(slice.position()).isEqualTo(5);
+        assertThat(new String(buffer.array(), 0, 6, StandardCharsets.UTF_8)).isEqualTo(">id=42");
+    }
+
+    @Test
+    void writeToDirectBuffer() {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        String value = "éééééééééééééééé" +
+                       "éééééééééééééééé" +
+                       "éééééééé";
+        // Act
+        Utf8Builder.to(buffer).encoded("v=").append(value).target();
+        // Assert
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertThat(bytes).isEqualTo(("v=" + value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void overflowKeepsPosition() {
+        // Arrange
+        ByteBuffer heap = ByteBuffer.allocate(8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(8);
+        // Act & Assert
+        assertThatThrownBy(() -> Utf8Builder.to(heap).encoded("id=").append(123456).target())
+                .isInstanceOf(BufferOverflowException.class);
+        assertThatThrownBy(() -> Utf8Builder.to(direct).encoded("id=").append("123456").target())
+                .isInstanceOf(BufferOverflowException.class);
+        assertThat(heap.position()).isZero();
+        assertThat(direct.position()).isZero();
+        // the heap buffer keeps the part which is written before the overflow
+        assertThat(Arrays.copyOf(heap.array(), 3)).isEqualTo("id=".getBytes(StandardCharsets.US_ASCII));
+        assertThat(direct.get(0)).isZero();
+        Utf8Builder.to(heap).encoded("id=").append(12345).target();
+        assertThat(heap.position()).isEqualTo(8);
+    }
+
+    @Test
+    void utf8WithoutProcessing() {
+        // Act
+        byte[] result = BetterStrings.utf8("text é");
+        ByteBuffer buffer = BetterStrings.writeUtf8(ByteBuffer.allocate(8), "text é");
+        // Assert
+        assertThat(result).isEqualTo("text é".getBytes(StandardCharsets.UTF_8));
+        assertThat(buffer.position()).isEqualTo(7);
+    }
+}
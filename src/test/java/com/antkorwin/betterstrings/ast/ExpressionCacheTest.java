@@ -0,0 +1,109 @@
+package com.antkorwin.betterstrings.ast;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Names;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpressionCacheTest {
+
+    private final TreeMaker treeMaker = treeMaker();
+
+    private static TreeMaker treeMaker() {
+        Context context = new Context();
+        JavacFileManager.preRegister(context);
+        return TreeMaker.instance(context);
+    }
+
+    @Test
+    void hitAndMiss() {
+        // Arrange
+        ExpressionCache cache = new ExpressionCache(64);
+        JCTree.JCExpression template = treeMaker.Literal("a");
+        // Act
+        JCTree.JCExpression missed = cache.get("a", "1.8", ExpressionWrapping.VALUE_OF);
+        cache.put("a", "1.8", ExpressionWrapping.VALUE_OF, template);
+        JCTree.JCExpression found = cache.get("a", "1.8", ExpressionWrapping.VALUE_OF);
+        JCTree.JCExpression otherMode = cache.get("a", "1.8", ExpressionWrapping.TO_STRING);
+        JCTree.JCExpression otherSource = cache.get("a", "17", ExpressionWrapping.VALUE_OF);
+        // Assert
+        assertThat(missed).isNull();
+        assertThat(found).isSameAs(template);
+        assertThat(otherMode).isNull();
+        assertThat(otherSource).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void evictEntriesAboveMaxSize() {
+        // Arrange
+        ExpressionCache cache = new ExpressionCache(64);
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            cache.put("value" + i, "1.8", ExpressionWrapping.VALUE_OF, treeMaker.Literal(i));
+        }
+        // Assert
+        assertThat(cache.size()).isLessThanOrEqualTo(64);
+        assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+    }
+
+    @Test
+    void rollOverNamesAfterEvictions() {
+        // Arrange
+        ExpressionCache cache = new ExpressionCache(64);
+        Names names = cache.getNames();
+        // Act
+        for (int i = 0; i < 64; i++) {
+            cache.put("value" + i, "1.8", ExpressionWrapping.VALUE_OF, treeMaker.Literal(i));
+        }
+        Names beforeEvictions = cache.getNames();
+        for (int i = 64; i < 128; i++) {
+            cache.put("value" + i, "1.8", ExpressionWrapping.VALUE_OF, treeMaker.Literal(i));
+        }
+        Names afterEvictions = cache.getNames();
+        cache.clear();
+        // Assert
+        assertThat(beforeEvictions).isSameAs(names);
+        assertThat(afterEvictions).isNotSameAs(names);
+        assertThat(cache.getNames()).isNotSameAs(afterEvictions);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void concurrentAccess() throws Exception {
+        // Arrange
+        ExpressionCache cache = new ExpressionCache(128);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String expression = "value" + (i % 300);
+                    if (cache.get(expression, "1.8", ExpressionWrapping.VALUE_OF) == null) {
+                        cache.put(expression, "1.8", ExpressionWrapping.VALUE_OF, treeMaker.Literal(expression));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        // Assert
+        assertThat(cache.getHitCount() + cache.getMissCount()).isEqualTo(80_000);
+        assertThat(cache.size()).isLessThanOrEqualTo(128);
+    }
+}
@@ -0,0 +1,59 @@
+package com.antkorwin.betterstrings.tokenizer;
+
+
+import com.antkorwin.betterstrings.Formats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FormatSpecTest {
+
+    @Test
+    void parseFlagsWidthAndPrecision() {
+        // Act
+        FormatSpec spec = FormatSpec.parse("+,012.3f");
+        // Assert
+        assertThat(spec.getMethod()).isEqualTo("fixed");
+        assertThat(spec.getFlags()).isEqualTo(Formats.PLUS | Formats.GROUPING | Formats.ZERO_PAD);
+        assertThat(spec.getWidth()).isEqualTo(12);
+        assertThat(spec.getPrecision()).isEqualTo(3);
+    }
+
+    @Test
+    void defaultPrecisionOfFixed() {
+        // Act
+        FormatSpec spec = FormatSpec.parse("f");
+        // Assert
+        assertThat(spec.hasPrecision()).isTrue();
+        assertThat(spec.getPrecision()).isEqualTo(6);
+        assertThat(spec.getWidth()).isEqualTo(-1);
+    }
+
+    @Test
+    void upperCaseHex() {
+        // Act
+        FormatSpec spec = FormatSpec.parse("#X");
+        // Assert
+        assertThat(spec.getMethod()).isEqualTo("hex");
+        assertThat(spec.hasPrecision()).isFalse();
+        assertThat(spec.getFlags()).isEqualTo(Formats.ALTERNATE | Formats.UPPER_CASE);
+    }
+
+    @Test
+    void wrongFormats() {
+        assertThat(wrongFormat(".2d")).isEqualTo("Wrong format `%.2d`, the precision isn't allowed with `d`");
+        assertThat(wrongFormat("+x")).isEqualTo("Wrong format `%+x`, the flag `+` isn't allowed with `x`");
+        assertThat(wrongFormat("-08d")).isEqualTo("Wrong format `%-08d`, the flags `-` and `0` can't be used together");
+        assertThat(wrongFormat("-d")).isEqualTo("Wrong format `%-d`, the flags `-` and `0` require the width");
+        assertThat(wrongFormat("++d")).isEqualTo("Wrong format `%++d`, the flag `+` is repeated");
+        assertThat(wrongFormat("5.f")).isEqualTo("Wrong format `%5.f`, the precision is expected after `.`");
+        assertThat(wrongFormat("5e")).isEqualTo("Wrong format `%5e`, supported conversions are d, x, X, f, s and S");
+        assertThat(wrongFormat("99999999999d")).isEqualTo("Wrong format `%99999999999d`, the number 99999999999 is too large");
+    }
+
+    private String wrongFormat(String spec) {
+        return Assertions.assertThrows(IllegalArgumentException.class, () -> FormatSpec.parse(spec))
+                         .getMessage();
+    }
+}
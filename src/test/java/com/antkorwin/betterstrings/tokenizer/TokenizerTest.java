@@ -111,4 +111,109 @@ class TokenizerTest {
         assertThat(tokens).extracting(Token::getValue, Token::getType)
                           .containsExactly(Tuple.tuple("just a text", STRING_LITERAL));
     }
-}
\ No newline at end of file
+
+    @Test
+    void containsExpression() {
+        assertThat(new Tokenizer().containsExpression("sum = ${a + b}")).isTrue();
+        assertThat(new Tokenizer().containsExpression("price: $ {a}")).isFalse();
+    }
+
+    @Test
+    void sourceMayContainExpressions() {
+        assertThat(Tokenizer.mayContainExpressions("class A { String s = \"${a}\"; }")).isTrue();
+        assertThat(Tokenizer.mayContainExpressions("class A { String s = \"\\u0024{a}\"; }")).isTrue();
+        assertThat(Tokenizer.mayContainExpressions("class A { String s = \"\\44{a}\"; }")).isTrue();
+        assertThat(Tokenizer.mayContainExpressions("class A { String s = \"$\\173a}\"; }")).isTrue();
+        assertThat(Tokenizer.mayContainExpressions("class A { String s = \"$ {a}\\n\"; }")).isFalse();
+    }
+
+    @Test
+    void expressionWithNestedBraces() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("value=${call(() -> { return a; })}!");
+        // Assert
+        assertThat(tokens).extracting(Token::getValue, Token::getType)
+                          .containsExactly(Tuple.tuple("value=", STRING_LITERAL),
+                                           Tuple.tuple("call(() -> { return a; })", EXPRESSION),
+                                           Tuple.tuple("!", STRING_LITERAL));
+    }
+
+    @Test
+    void bracesInsideQuotes() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("${map.get(\"}\")}${'}'}${map.get(\"\\\"}\")}");
+        // Assert
+        assertThat(tokens).extracting(Token::getValue, Token::getType)
+                          .containsExactly(Tuple.tuple("map.get(\"}\")", EXPRESSION),
+                                           Tuple.tuple("'}'", EXPRESSION),
+                                           Tuple.tuple("map.get(\"\\\"}\")", EXPRESSION));
+    }
+
+    @Test
+    void escapedExpression() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("a\\${b}c${d}");
+        // Assert
+        assertThat(tokens).extracting(Token::getValue, Token::getType)
+                          .containsExactly(Tuple.tuple("a", STRING_LITERAL),
+                                           Tuple.tuple("${b}c", STRING_LITERAL),
+                                           Tuple.tuple("d", EXPRESSION));
+    }
+
+    @Test
+    void escapedBackslashBeforeExpression() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("a\\\\${b}");
+        // Assert
+        assertThat(tokens).extracting(Token::getValue, Token::getType)
+                          .containsExactly(Tuple.tuple("a\\", STRING_LITERAL),
+                                           Tuple.tuple("b", EXPRESSION));
+    }
+
+    @Test
+    void tokensAreViewsOfLiteral() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("ab${cd}", 10);
+        // Assert
+        assertThat(tokens).extracting(Token::getStart, Token::getLength, Token::getOffset)
+                          .containsExactly(Tuple.tuple(0, 2, 11),
+                                           Tuple.tuple(4, 2, 15));
+    }
+
+    @Test
+    void formatOfExpression() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("${price:%.2f} ${id:%08d} ${map.get(\":%s\"):%-10S} ${id:%x}", 10);
+        // Assert
+        assertThat(tokens).filteredOn(t -> t.getType() == EXPRESSION)
+                          .extracting(Token::getValue, Token::getFormat, Token::getOffset)
+                          .containsExactly(Tuple.tuple("price", ".2f", 13),
+                                           Tuple.tuple("id", "08d", 27),
+                                           Tuple.tuple("map.get(\":%s\")", "-10S", 38),
+                                           Tuple.tuple("id", "x", 62));
+    }
+
+    @Test
+    void moduloIsNotFormat() {
+        // Arrange
+        List<Token> tokens = new Tokenizer().split("${a%b} ${a % d} ${a%2} ${a%x} ${a%.2f} ${a ? b : c}");
+        // Assert
+        assertThat(tokens).filteredOn(t -> t.getType() == EXPRESSION)
+                          .extracting(Token::getValue, Token::getFormat)
+                          .containsExactly(Tuple.tuple("a%b", null),
+                                           Tuple.tuple("a % d", null),
+                                           Tuple.tuple("a%2", null),
+                                           Tuple.tuple("a%x", null),
+                                           Tuple.tuple("a%.2f", null),
+                                           Tuple.tuple("a ? b : c", null));
+    }
+
+    @Test
+    void wrongValueWithUnclosedNestedBrace() {
+
+        RuntimeException exception =
+                Assertions.assertThrows(RuntimeException.class,
+                                        () -> new Tokenizer().split("${f(() -> {)}"));
+        assertThat(exception.getMessage()).isEqualTo("Not found ending bracket `}` of a variable declaration in string value: ${f(() -> {)}");
+    }
+}